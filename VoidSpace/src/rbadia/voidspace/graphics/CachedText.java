@@ -0,0 +1,195 @@
+package rbadia.voidspace.graphics;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * A message of one or more centered lines, laid out once for each font size
+ * it is drawn at. The glyphs and measures of each size are kept, so drawing
+ * the message again needs no new fonts and no measuring. Once a size has been
+ * drawn twice, the message is also drawn into an image at that size, and from
+ * then on it is drawn with a single blit.
+ */
+public class CachedText {
+  private final Font font;
+  private final Color color;
+  private final int lineSpacing;
+  private final String[] lines;
+
+  // the layouts, by font size
+  private Layout[] layouts = new Layout[64];
+
+  // the bounds of the last message drawn
+  private final Rectangle bounds = new Rectangle();
+
+  /**
+   * The message laid out at one font size.
+   */
+  private static class Layout {
+    GlyphVector[] glyphs;
+    int[] lineX;
+    int width;
+    int ascent;
+    int draws;
+
+    // the message drawn at this size, and where its corner is relative to
+    // the center of the first line's baseline
+    BufferedImage image;
+    int imageX;
+    int imageY;
+  }
+
+  /**
+   * Creates a new message.
+   *
+   * @param font
+   *          - the font of the message, at any size
+   * @param color
+   *          - the color of the message
+   * @param lineSpacing
+   *          - the distance between the baselines of two lines
+   * @param lines
+   *          - the lines of the message
+   */
+  public CachedText(Font font, Color color, int lineSpacing, String... lines) {
+    this.font = font;
+    this.color = color;
+    this.lineSpacing = lineSpacing;
+    this.lines = lines;
+  }
+
+  /**
+   * Returns the width of the message's widest line.
+   *
+   * @param g2d
+   *          - the graphics canvas the message is drawn to
+   * @param size
+   *          - the font size
+   * @return the width of the message
+   */
+  public int getWidth(Graphics2D g2d, int size) {
+    return getLayout(g2d, size).width;
+  }
+
+  /**
+   * Returns the ascent of the message's font.
+   *
+   * @param g2d
+   *          - the graphics canvas the message is drawn to
+   * @param size
+   *          - the font size
+   * @return the ascent of the font
+   */
+  public int getAscent(Graphics2D g2d, int size) {
+    return getLayout(g2d, size).ascent;
+  }
+
+  /**
+   * Draws the message, each line centered on the given x coordinate.
+   *
+   * @param g2d
+   *          - the graphics canvas
+   * @param size
+   *          - the font size
+   * @param centerX
+   *          - the x coordinate the lines are centered on
+   * @param baseline
+   *          - the y coordinate of the first line's baseline
+   * @return the bounds of the pixels drawn, only valid until the next call
+   */
+  public Rectangle draw(Graphics2D g2d, int size, int centerX, int baseline) {
+    Layout layout = getLayout(g2d, size);
+    if (layout.image == null && ++layout.draws >= 2) {
+      prerender(g2d, layout);
+    }
+
+    if (layout.image != null) {
+      int x = centerX + layout.imageX;
+      int y = baseline + layout.imageY;
+      g2d.drawImage(layout.image, x, y, null);
+      bounds.setBounds(x, y, layout.image.getWidth(), layout.image.getHeight());
+    } else {
+      g2d.setPaint(color);
+      for (int l = 0; l < lines.length; l++) {
+        g2d.drawGlyphVector(layout.glyphs[l], centerX + layout.lineX[l], baseline + l
+            * lineSpacing);
+      }
+      bounds.setBounds(getPixelBounds(g2d, layout, centerX, baseline));
+    }
+    return bounds;
+  }
+
+  /**
+   * Returns the layout for a font size, laying the message out the first time.
+   */
+  private Layout getLayout(Graphics2D g2d, int size) {
+    if (size >= layouts.length) {
+      layouts = Arrays.copyOf(layouts, Math.max(size + 1, layouts.length * 2));
+    }
+    Layout layout = layouts[size];
+    if (layout == null) {
+      Font sized = font.deriveFont((float) size);
+      FontMetrics fm = g2d.getFontMetrics(sized);
+      FontRenderContext frc = g2d.getFontRenderContext();
+
+      layout = new Layout();
+      layout.glyphs = new GlyphVector[lines.length];
+      layout.lineX = new int[lines.length];
+      layout.ascent = fm.getAscent();
+      for (int l = 0; l < lines.length; l++) {
+        int width = fm.stringWidth(lines[l]);
+        layout.glyphs[l] = sized.createGlyphVector(frc, lines[l]);
+        layout.lineX[l] = -width / 2;
+        layout.width = Math.max(layout.width, width);
+      }
+      layouts[size] = layout;
+    }
+    return layout;
+  }
+
+  /**
+   * Returns the bounds of the pixels covered by a layout drawn at the given
+   * location, with a pixel of room for antialiasing.
+   */
+  private Rectangle getPixelBounds(Graphics2D g2d, Layout layout, int centerX, int baseline) {
+    FontRenderContext frc = g2d.getFontRenderContext();
+    Rectangle pixels = null;
+    for (int l = 0; l < lines.length; l++) {
+      Rectangle line = layout.glyphs[l].getPixelBounds(frc, centerX + layout.lineX[l],
+          baseline + l * lineSpacing);
+      pixels = pixels == null ? line : pixels.union(line);
+    }
+    pixels.grow(1, 1);
+    return pixels;
+  }
+
+  /**
+   * Draws a layout into its own image.
+   */
+  private void prerender(Graphics2D g2d, Layout layout) {
+    Rectangle pixels = getPixelBounds(g2d, layout, 0, 0);
+    BufferedImage image = new BufferedImage(Math.max(pixels.width, 1),
+        Math.max(pixels.height, 1), BufferedImage.TYPE_INT_ARGB);
+    Graphics2D g = image.createGraphics();
+    try {
+      g.setRenderingHints(g2d.getRenderingHints());
+      g.setPaint(color);
+      for (int l = 0; l < lines.length; l++) {
+        g.drawGlyphVector(layout.glyphs[l], layout.lineX[l] - pixels.x, l * lineSpacing
+            - pixels.y);
+      }
+    } finally {
+      g.dispose();
+    }
+    layout.image = image;
+    layout.imageX = pixels.x;
+    layout.imageY = pixels.y;
+  }
+}
@@ -1,58 +1,97 @@
 package rbadia.voidspace.graphics;
 
-import java.awt.Graphics2D;
-import java.awt.Rectangle;
+import java.awt.GraphicsEnvironment;
 import java.awt.image.BufferedImage;
-import java.awt.image.ImageObserver;
 
 import javax.imageio.ImageIO;
 import javax.swing.JOptionPane;
 
-import rbadia.voidspace.model.Asteroid;
-import rbadia.voidspace.model.Bullet;
-import rbadia.voidspace.model.ChuckNorris;
-import rbadia.voidspace.model.EnemyBullet;
-import rbadia.voidspace.model.EnemyShip;
-import rbadia.voidspace.model.Ship;
+import rbadia.voidspace.model.CollisionMask;
 
 /**
- * Manages and draws game graphics and images.
+ * Manages game graphics and images. All the images are packed in a sprite
+ * atlas when loaded, and drawn from there with a SpriteBatch.
  */
 public class GraphicsManager {
-  private BufferedImage shipImg;
-  private BufferedImage bulletImg;
-  private BufferedImage asteroidImg;
-  private BufferedImage asteroidExplosionImg;
-  private BufferedImage shipExplosionImg;
-  private BufferedImage enemyShipImg;
-  private BufferedImage enemyBulletImg;
-  private BufferedImage enemyShipExplosionImg;
-  private BufferedImage chuckNorrisImg;
+  // region names of the sprites in the atlas
+  public static final String SHIP = "ship";
+  public static final String BULLET = "bullet";
+  public static final String ASTEROID = "asteroid";
+  public static final String ASTEROID_EXPLOSION = "asteroidExplosion";
+  public static final String SHIP_EXPLOSION = "shipExplosion";
+  public static final String ENEMY_SHIP = "enemyShip";
+  public static final String ENEMY_BULLET = "enemyBullet";
+  public static final String ENEMY_SHIP_EXPLOSION = "enemyShipExplosion";
+  public static final String CHUCK_NORRIS = "chuckNorris";
+
+  // pixels at least this opaque are solid in the collision masks
+  private static final int SOLID_ALPHA = 128;
+
+  // width of the atlas pages, enough to fit every sprite in one
+  private static final int ATLAS_PAGE_SIZE = 256;
+
+  private SpriteAtlas atlas;
+
+  private CollisionMask shipMask;
+  private CollisionMask bulletMask;
+  private CollisionMask asteroidMask;
+  private CollisionMask enemyShipMask;
+  private CollisionMask enemyBulletMask;
+  private CollisionMask chuckNorrisMask;
 
   /**
-   * Creates a new graphics manager and loads the game images.
+   * Creates a new graphics manager, loads the game images and builds the
+   * collision masks of the sprites that can collide. The images are then
+   * packed in an atlas in the screen's format, so drawing them needs no
+   * conversion.
    */
   public GraphicsManager() {
     // load images
     try {
-      this.shipImg = ImageIO.read(getClass().getResource("/rbadia/voidspace/graphics/ship.png"));
-      this.asteroidImg = ImageIO.read(getClass().getResource(
+      BufferedImage shipImg = ImageIO.read(getClass().getResource(
+          "/rbadia/voidspace/graphics/ship.png"));
+      BufferedImage asteroidImg = ImageIO.read(getClass().getResource(
           "/rbadia/voidspace/graphics/asteroid.png"));
-      this.asteroidExplosionImg = ImageIO.read(getClass().getResource(
+      BufferedImage asteroidExplosionImg = ImageIO.read(getClass().getResource(
           "/rbadia/voidspace/graphics/asteroidExplosion.png"));
-      this.shipExplosionImg = ImageIO.read(getClass().getResource(
+      BufferedImage shipExplosionImg = ImageIO.read(getClass().getResource(
           "/rbadia/voidspace/graphics/shipExplosion.png"));
-      this.bulletImg = ImageIO
-          .read(getClass().getResource("/rbadia/voidspace/graphics/bullet.png"));
+      BufferedImage bulletImg = ImageIO.read(getClass().getResource(
+          "/rbadia/voidspace/graphics/bullet.png"));
 
-      this.enemyShipImg = ImageIO.read(getClass().getResource(
+      BufferedImage enemyShipImg = ImageIO.read(getClass().getResource(
           "/rbadia/voidspace/graphics/enemyShip.png"));
-      this.enemyBulletImg = ImageIO.read(getClass().getResource(
+      BufferedImage enemyBulletImg = ImageIO.read(getClass().getResource(
           "/rbadia/voidspace/graphics/enemyBullet.png"));
-      this.enemyShipExplosionImg = ImageIO.read(getClass().getResource(
+      BufferedImage enemyShipExplosionImg = ImageIO.read(getClass().getResource(
           "/rbadia/voidspace/graphics/enemyShipExplosion.png"));
-      this.chuckNorrisImg = ImageIO.read(getClass().getResource(
+      BufferedImage chuckNorrisImg = ImageIO.read(getClass().getResource(
           "/rbadia/voidspace/graphics/CHUCK_NORRIS_INDESTRUCTABLE.png"));
+
+      this.shipMask = createMask(shipImg);
+      this.bulletMask = createMask(bulletImg);
+      this.asteroidMask = createMask(asteroidImg);
+      this.enemyShipMask = createMask(enemyShipImg);
+      this.enemyBulletMask = createMask(enemyBulletImg);
+      this.chuckNorrisMask = createMask(chuckNorrisImg);
+
+      // pack the images in the atlas
+      atlas = new SpriteAtlas(ATLAS_PAGE_SIZE);
+      atlas.add(SHIP, shipImg);
+      atlas.add(BULLET, bulletImg);
+      atlas.add(ASTEROID, asteroidImg);
+      atlas.add(ASTEROID_EXPLOSION, asteroidExplosionImg);
+      atlas.add(SHIP_EXPLOSION, shipExplosionImg);
+      atlas.add(ENEMY_SHIP, enemyShipImg);
+      atlas.add(ENEMY_BULLET, enemyBulletImg);
+      atlas.add(ENEMY_SHIP_EXPLOSION, enemyShipExplosionImg);
+      atlas.add(CHUCK_NORRIS, chuckNorrisImg);
+      if (GraphicsEnvironment.isHeadless()) {
+        atlas.pack(null);
+      } else {
+        atlas.pack(GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+            .getDefaultConfiguration());
+      }
     } catch (Exception e) {
       JOptionPane.showMessageDialog(null, "The graphic files are either corrupt or missing.",
           "VoidSpace - Fatal Error", JOptionPane.ERROR_MESSAGE);
@@ -62,131 +101,89 @@ public class GraphicsManager {
   }
 
   /**
-   * Draws a ship image to the specified graphics canvas.
+   * Returns the atlas holding all the game images.
    * 
-   * @param ship
-   *          the ship to draw
-   * @param g2d
-   *          the graphics canvas
-   * @param observer
-   *          object to be notified
+   * @return the sprite atlas
    */
-  public void drawShip(Ship ship, Graphics2D g2d, ImageObserver observer) {
-    g2d.drawImage(shipImg, ship.x, ship.y, observer);
+  public SpriteAtlas getAtlas() {
+    return atlas;
   }
 
   /**
-   * Draws a bullet image to the specified graphics canvas.
+   * Builds a collision mask from the alpha channel of an image.
    * 
-   * @param bullet
-   *          the bullet to draw
-   * @param g2d
-   *          the graphics canvas
-   * @param observer
-   *          object to be notified
+   * @param image
+   *          - the image
+   * @return the mask, solid where the image is mostly opaque
    */
-  public void drawBullet(Bullet bullet, Graphics2D g2d, ImageObserver observer) {
-    g2d.drawImage(bulletImg, bullet.x, bullet.y, observer);
-  }
-
-  /**
-   * Draws an asteroid image to the specified graphics canvas.
-   * 
-   * @param asteroid
-   *          the asteroid to draw
-   * @param g2d
-   *          the graphics canvas
-   * @param observer
-   *          object to be notified
-   */
-  public void drawAsteroid(Asteroid asteroid, Graphics2D g2d, ImageObserver observer) {
-    g2d.drawImage(asteroidImg, asteroid.x, asteroid.y, observer);
+  public static CollisionMask createMask(BufferedImage image) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    CollisionMask mask = new CollisionMask(width, height);
+    int[] row = new int[width];
+    for (int y = 0; y < height; y++) {
+      image.getRGB(0, y, width, 1, row, 0, width);
+      for (int x = 0; x < width; x++) {
+        if ((row[x] >>> 24) >= SOLID_ALPHA) {
+          mask.set(x, y);
+        }
+      }
+    }
+    return mask;
   }
 
   /**
-   * Draws a chuck norris image to the specified graphics canvas.
+   * Returns the collision mask of the ship image.
    * 
-   * @param chuckNorris
-   *          the chucknorris to draw
-   * @param g2d
-   *          the graphics canvas
-   * @param observer
-   *          object to be notified
+   * @return the ship mask
    */
-  public void drawChuckNorris(ChuckNorris chuckNorris, Graphics2D g2d, ImageObserver observer) {
-    g2d.drawImage(chuckNorrisImg, chuckNorris.x, chuckNorris.y, observer);
+  public CollisionMask getShipMask() {
+    return shipMask;
   }
 
   /**
-   * Draws a ship explosion image to the specified graphics canvas.
+   * Returns the collision mask of the bullet image.
    * 
-   * @param shipExplosion
-   *          the bounding rectangle of the explosion
-   * @param g2d
-   *          the graphics canvas
-   * @param observer
-   *          object to be notified
+   * @return the bullet mask
    */
-  public void drawShipExplosion(Rectangle shipExplosion, Graphics2D g2d, ImageObserver observer) {
-    g2d.drawImage(shipExplosionImg, shipExplosion.x, shipExplosion.y, observer);
+  public CollisionMask getBulletMask() {
+    return bulletMask;
   }
 
   /**
-   * Draws an asteroid explosion image to the specified graphics canvas.
+   * Returns the collision mask of the asteroid image.
    * 
-   * @param asteroidExplosion
-   *          the bounding rectangle of the explosion
-   * @param g2d
-   *          the graphics canvas
-   * @param observer
-   *          object to be notified
+   * @return the asteroid mask
    */
-  public void drawAsteroidExplosion(Rectangle asteroidExplosion, Graphics2D g2d,
-      ImageObserver observer) {
-    g2d.drawImage(asteroidExplosionImg, asteroidExplosion.x, asteroidExplosion.y, observer);
+  public CollisionMask getAsteroidMask() {
+    return asteroidMask;
   }
 
   /**
-   * Draws an enemy ship explosion image to the specified graphics canvas.
+   * Returns the collision mask of the enemy ship image.
    * 
-   * @param enemyShipExplosion
-   *          - the bounding rectangle of the explosion
-   * @param g2d
-   *          - the graphics canvas
-   * @param observer
-   *          - object to be notified
+   * @return the enemy ship mask
    */
-  public void drawEnemyShipExplosion(Rectangle enemyShipExplosion, Graphics2D g2d,
-      ImageObserver observer) {
-    g2d.drawImage(enemyShipExplosionImg, enemyShipExplosion.x, enemyShipExplosion.y, observer);
+  public CollisionMask getEnemyShipMask() {
+    return enemyShipMask;
   }
 
   /**
-   * Draws an enemy ship image to the specified graphics canvas
+   * Returns the collision mask of the enemy bullet image.
    * 
-   * @param ship
-   *          - the enemy ship to draw
-   * @param g2d
-   *          - the graphics canvas
-   * @param observer
-   *          - the object to be notified
+   * @return the enemy bullet mask
    */
-  public void drawEnemyShip(EnemyShip ship, Graphics2D g2d, ImageObserver observer) {
-    g2d.drawImage(enemyShipImg, ship.x, ship.y, observer);
+  public CollisionMask getEnemyBulletMask() {
+    return enemyBulletMask;
   }
 
   /**
-   * Draws an enemy bullet image to the specified canvas
+   * Returns the collision mask of the chuck norris image.
    * 
-   * @param bullet
-   *          - the enemy bullet to draw
-   * @param g2d
-   *          - the graphics canvas
-   * @param observer
-   *          - the object to be notified
+   * @return the chuck norris mask
    */
-  public void drawEnemyBullet(EnemyBullet bullet, Graphics2D g2d, ImageObserver observer) {
-    g2d.drawImage(enemyBulletImg, bullet.x, bullet.y, observer);
+  public CollisionMask getChuckNorrisMask() {
+    return chuckNorrisMask;
   }
 
 }
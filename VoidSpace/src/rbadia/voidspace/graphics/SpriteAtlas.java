@@ -0,0 +1,244 @@
+package rbadia.voidspace.graphics;
+
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Packs many small images into a few big ones, called pages, so sprites are
+ * drawn as parts of the same image instead of from many separate ones. Each
+ * image added becomes a named region of a page.
+ *
+ * Images are added first, then pack() places them on the pages, going
+ * through them from the tallest to the shortest and filling the pages row by
+ * row. Regions can only be drawn once the atlas is packed, with a
+ * SpriteBatch.
+ */
+public class SpriteAtlas {
+  private final int pageSize;
+
+  private int regionCount;
+  private String[] names = new String[16];
+  private BufferedImage[] images = new BufferedImage[16];
+
+  // where each region is, once packed
+  private int[] regionPages;
+  private int[] regionX;
+  private int[] regionY;
+  private int[] regionWidth;
+  private int[] regionHeight;
+
+  private BufferedImage[] pages;
+
+  /**
+   * Creates a new, empty atlas.
+   *
+   * @param pageSize
+   *          - the width and largest height of each page
+   */
+  public SpriteAtlas(int pageSize) {
+    this.pageSize = pageSize;
+  }
+
+  /**
+   * Adds an image to the atlas.
+   *
+   * @param name
+   *          - the name of the image's region
+   * @param image
+   *          - the image
+   * @return the number of the image's region
+   */
+  public int add(String name, BufferedImage image) {
+    if (pages != null) {
+      throw new IllegalStateException("The atlas is already packed");
+    }
+    if (image.getWidth() > pageSize || image.getHeight() > pageSize) {
+      throw new IllegalArgumentException("Image " + name + " is larger than a page");
+    }
+    if (regionCount == names.length) {
+      names = Arrays.copyOf(names, regionCount * 2);
+      images = Arrays.copyOf(images, regionCount * 2);
+    }
+    names[regionCount] = name;
+    images[regionCount] = image;
+    return regionCount++;
+  }
+
+  /**
+   * Places the images added on pages, and draws them there.
+   *
+   * @param gc
+   *          - the graphics configuration the pages will be drawn to, so they
+   *          are created in its format, or null for plain ARGB images
+   */
+  public void pack(GraphicsConfiguration gc) {
+    regionPages = new int[regionCount];
+    regionX = new int[regionCount];
+    regionY = new int[regionCount];
+    regionWidth = new int[regionCount];
+    regionHeight = new int[regionCount];
+
+    // go through the images from the tallest to the shortest...
+    Integer[] order = new Integer[regionCount];
+    for (int r = 0; r < regionCount; r++) {
+      order[r] = r;
+      regionWidth[r] = images[r].getWidth();
+      regionHeight[r] = images[r].getHeight();
+    }
+    Arrays.sort(order, new Comparator<Integer>() {
+      public int compare(Integer a, Integer b) {
+        return regionHeight[b] - regionHeight[a];
+      }
+    });
+
+    // ...placing them left to right in rows as tall as their first image
+    int[] pageHeights = new int[regionCount + 1];
+    int page = 0;
+    int x = 0;
+    int y = 0;
+    int rowHeight = 0;
+    for (int k = 0; k < regionCount; k++) {
+      int r = order[k];
+      if (x + regionWidth[r] > pageSize) {
+        x = 0;
+        y += rowHeight;
+        rowHeight = 0;
+      }
+      if (y + regionHeight[r] > pageSize) {
+        page++;
+        x = 0;
+        y = 0;
+        rowHeight = 0;
+      }
+      regionPages[r] = page;
+      regionX[r] = x;
+      regionY[r] = y;
+      x += regionWidth[r];
+      rowHeight = Math.max(rowHeight, regionHeight[r]);
+      pageHeights[page] = Math.max(pageHeights[page], y + rowHeight);
+    }
+
+    // draw the images on their pages
+    pages = new BufferedImage[regionCount == 0 ? 0 : page + 1];
+    Graphics2D[] graphics = new Graphics2D[pages.length];
+    for (int p = 0; p < pages.length; p++) {
+      if (gc != null) {
+        pages[p] = gc.createCompatibleImage(pageSize, pageHeights[p], Transparency.TRANSLUCENT);
+      } else {
+        pages[p] = new BufferedImage(pageSize, pageHeights[p], BufferedImage.TYPE_INT_ARGB);
+      }
+      graphics[p] = pages[p].createGraphics();
+    }
+    for (int r = 0; r < regionCount; r++) {
+      graphics[regionPages[r]].drawImage(images[r], regionX[r], regionY[r], null);
+    }
+    for (int p = 0; p < pages.length; p++) {
+      graphics[p].dispose();
+    }
+    images = null;
+  }
+
+  /**
+   * Returns the number of a named region.
+   *
+   * @param name
+   *          - the name of the region
+   * @return the number of the region
+   */
+  public int getRegion(String name) {
+    for (int r = 0; r < regionCount; r++) {
+      if (names[r].equals(name)) {
+        return r;
+      }
+    }
+    throw new IllegalArgumentException("No region named " + name);
+  }
+
+  /**
+   * Returns the number of regions in the atlas.
+   *
+   * @return the number of regions
+   */
+  public int getRegionCount() {
+    return regionCount;
+  }
+
+  /**
+   * Returns the number of pages in the atlas.
+   *
+   * @return the number of pages
+   */
+  public int getPageCount() {
+    return pages.length;
+  }
+
+  /**
+   * Returns a page of the atlas.
+   *
+   * @param page
+   *          - the number of the page
+   * @return the page
+   */
+  public BufferedImage getPage(int page) {
+    return pages[page];
+  }
+
+  /**
+   * Returns the page a region is on.
+   *
+   * @param region
+   *          - the number of the region
+   * @return the number of the region's page
+   */
+  public int getRegionPage(int region) {
+    return regionPages[region];
+  }
+
+  /**
+   * Returns the x coordinate of a region on its page.
+   *
+   * @param region
+   *          - the number of the region
+   * @return the x coordinate
+   */
+  public int getRegionX(int region) {
+    return regionX[region];
+  }
+
+  /**
+   * Returns the y coordinate of a region on its page.
+   *
+   * @param region
+   *          - the number of the region
+   * @return the y coordinate
+   */
+  public int getRegionY(int region) {
+    return regionY[region];
+  }
+
+  /**
+   * Returns the width of a region.
+   *
+   * @param region
+   *          - the number of the region
+   * @return the width
+   */
+  public int getRegionWidth(int region) {
+    return regionWidth[region];
+  }
+
+  /**
+   * Returns the height of a region.
+   *
+   * @param region
+   *          - the number of the region
+   * @return the height
+   */
+  public int getRegionHeight(int region) {
+    return regionHeight[region];
+  }
+}
@@ -0,0 +1,121 @@
+package rbadia.voidspace.graphics;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * Collects the sprites of a frame and draws them all at once, page by page of
+ * a sprite atlas, so drawing many sprites is one tight loop of blits from the
+ * same image.
+ *
+ * Sprites on the same page are drawn in the order they were added. Sprites on
+ * different pages are not, so sprites that should cover each other belong on
+ * the same page.
+ */
+public class SpriteBatch {
+  private final SpriteAtlas atlas;
+
+  // the sprites added since the last flush
+  private int count;
+  private int[] regions = new int[256];
+  private int[] xs = new int[256];
+  private int[] ys = new int[256];
+
+  // the sprites grouped by page, when there is more than one
+  private int[] order = new int[256];
+  private int[] pageStart;
+
+  /**
+   * Creates a new, empty batch.
+   *
+   * @param atlas
+   *          - the packed atlas the sprites are drawn from
+   */
+  public SpriteBatch(SpriteAtlas atlas) {
+    this.atlas = atlas;
+    this.pageStart = new int[atlas.getPageCount() + 1];
+  }
+
+  /**
+   * Adds a sprite to be drawn on the next flush.
+   *
+   * @param region
+   *          - the atlas region of the sprite
+   * @param x
+   *          - the x coordinate to draw the sprite at
+   * @param y
+   *          - the y coordinate to draw the sprite at
+   */
+  public void add(int region, int x, int y) {
+    if (count == regions.length) {
+      regions = Arrays.copyOf(regions, count * 2);
+      xs = Arrays.copyOf(xs, count * 2);
+      ys = Arrays.copyOf(ys, count * 2);
+    }
+    regions[count] = region;
+    xs[count] = x;
+    ys[count] = y;
+    count++;
+  }
+
+  /**
+   * Draws all the sprites added since the last flush, and empties the batch.
+   *
+   * @param g2d
+   *          - the graphics canvas
+   */
+  public void flush(Graphics2D g2d) {
+    if (atlas.getPageCount() == 1) {
+      drawPage(g2d, atlas.getPage(0), null, 0, count);
+    } else if (count > 0) {
+      groupByPage();
+      for (int p = 0; p < atlas.getPageCount(); p++) {
+        drawPage(g2d, atlas.getPage(p), order, pageStart[p], pageStart[p + 1]);
+      }
+    }
+    count = 0;
+  }
+
+  /**
+   * Draws the sprites from start to end, in the given order or the order they
+   * were added, all from the same page.
+   */
+  private void drawPage(Graphics2D g2d, BufferedImage page, int[] order, int start, int end) {
+    for (int k = start; k < end; k++) {
+      int s = order == null ? k : order[k];
+      int region = regions[s];
+      int sx = atlas.getRegionX(region);
+      int sy = atlas.getRegionY(region);
+      int w = atlas.getRegionWidth(region);
+      int h = atlas.getRegionHeight(region);
+      int x = xs[s];
+      int y = ys[s];
+      g2d.drawImage(page, x, y, x + w, y + h, sx, sy, sx + w, sy + h, null);
+    }
+  }
+
+  /**
+   * Sorts the sprites by page with a counting sort, keeping their order within
+   * each page.
+   */
+  private void groupByPage() {
+    if (order.length < count) {
+      order = new int[regions.length];
+    }
+    Arrays.fill(pageStart, 0);
+    for (int s = 0; s < count; s++) {
+      pageStart[atlas.getRegionPage(regions[s]) + 1]++;
+    }
+    for (int p = 1; p < pageStart.length; p++) {
+      pageStart[p] += pageStart[p - 1];
+    }
+    for (int s = 0; s < count; s++) {
+      order[pageStart[atlas.getRegionPage(regions[s])]++] = s;
+    }
+    for (int p = pageStart.length - 1; p > 0; p--) {
+      pageStart[p] = pageStart[p - 1];
+    }
+    pageStart[0] = 0;
+  }
+}
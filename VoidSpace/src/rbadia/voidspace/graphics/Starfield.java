@@ -0,0 +1,113 @@
+package rbadia.voidspace.graphics;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+
+import rbadia.voidspace.model.RandomStream;
+
+/**
+ * The scrolling stars behind the game. The stars are split in layers, from
+ * the farthest, dimmest and slowest to the nearest, brightest and fastest,
+ * and each layer is drawn once into an image the size of the screen. Each
+ * frame, every layer is scrolled down by blitting its image twice, wrapping
+ * around the screen, so drawing costs the same however many stars there are.
+ *
+ * The farthest layer is opaque and also clears the screen.
+ */
+public class Starfield {
+  // speed of the farthest layer, in pixels per second; each nearer layer
+  // moves as fast as the farthest one times its number, counting from one
+  private static final int FAR_LAYER_SPEED = 8;
+
+  private final int width;
+  private final int height;
+  private final BufferedImage[] layers;
+  private final int[] speeds;
+
+  /**
+   * Creates a new starfield and draws its layers.
+   *
+   * @param width
+   *          - the width of the screen
+   * @param height
+   *          - the height of the screen
+   * @param starCount
+   *          - the number of stars, split among the layers
+   * @param layerCount
+   *          - the number of layers
+   * @param random
+   *          - the random stream the stars are placed with
+   * @param gc
+   *          - the graphics configuration the layers will be drawn to, so
+   *          they are created in its format, or null for plain images
+   */
+  public Starfield(int width, int height, int starCount, int layerCount, RandomStream random,
+      GraphicsConfiguration gc) {
+    this.width = width;
+    this.height = height;
+    this.layers = new BufferedImage[layerCount];
+    this.speeds = new int[layerCount];
+
+    int starsLeft = starCount;
+    for (int k = 0; k < layerCount; k++) {
+      boolean far = k == 0;
+      BufferedImage layer = createImage(far ? Transparency.OPAQUE : Transparency.BITMASK, gc);
+      Graphics2D g = layer.createGraphics();
+      try {
+        if (far) {
+          g.setColor(Color.BLACK);
+          g.fillRect(0, 0, width, height);
+        }
+        // each layer takes half the stars left, the nearest one all of them
+        int stars = k == layerCount - 1 ? starsLeft : starsLeft / 2;
+        starsLeft -= stars;
+        int brightness = 255 * (k + 1) / layerCount;
+        g.setColor(new Color(brightness, brightness, brightness));
+        for (int s = 0; s < stars; s++) {
+          g.fillRect(random.nextInt(width), random.nextInt(height), 1, 1);
+        }
+      } finally {
+        g.dispose();
+      }
+      layers[k] = layer;
+      speeds[k] = FAR_LAYER_SPEED * (k + 1);
+    }
+  }
+
+  /**
+   * Creates an image for a layer.
+   */
+  private BufferedImage createImage(int transparency, GraphicsConfiguration gc) {
+    if (gc != null) {
+      return gc.createCompatibleImage(width, height, transparency);
+    }
+    return new BufferedImage(width, height, transparency == Transparency.OPAQUE
+        ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+  }
+
+  /**
+   * Draws the starfield as it is at the given time, covering the whole screen.
+   *
+   * @param g2d
+   *          - the graphics canvas
+   * @param time
+   *          - the time, in nanoseconds, that sets how far the layers have
+   *          scrolled
+   */
+  public void draw(Graphics2D g2d, long time) {
+    long millis = time / 1000000;
+    for (int k = 0; k < layers.length; k++) {
+      int offset = (int) (millis * speeds[k] / 1000 % height);
+      if (offset < 0) {
+        offset += height;
+      }
+      g2d.drawImage(layers[k], 0, offset, null);
+      if (offset > 0) {
+        g2d.drawImage(layers[k], 0, offset - height, null);
+      }
+    }
+  }
+}
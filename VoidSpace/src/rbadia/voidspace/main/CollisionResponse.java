@@ -0,0 +1,20 @@
+package rbadia.voidspace.main;
+
+/**
+ * What happens when two kinds of entities collide, for one rule of the
+ * collision system.
+ */
+public interface CollisionResponse {
+
+  /**
+   * Handles a collision between two entities.
+   *
+   * @param first
+   *          - the index of the entity in the rule's first store
+   * @param second
+   *          - the index of the entity in the rule's second store
+   * @param currentTime
+   *          - the time of the current tick, in milliseconds
+   */
+  void collide(int first, int second, long currentTime);
+}
@@ -0,0 +1,244 @@
+package rbadia.voidspace.main;
+
+import java.util.Arrays;
+
+import rbadia.voidspace.model.CollisionGrid;
+import rbadia.voidspace.model.EntityStore;
+
+/**
+ * Finds and handles all the collisions of a tick in a single pass.
+ *
+ * Which kinds of entities collide, and what happens when they do, is declared
+ * as a table of rules, one for each pair of entity stores that can collide.
+ * Each tick, the entities of every store in the table are listed once in a
+ * collision grid, and each cell of the grid is checked for overlapping pairs
+ * that have a rule. The contacts found are then handled rule by rule, in the
+ * order the rules were added, so earlier rules take priority.
+ *
+ * Handling a contact can move or remove entities, so every contact is checked
+ * again just before it is handled.
+ *
+ * Stores of fast entities, like bullets, can be marked as swept. Rules with a
+ * swept store check the whole path the entities moved along during the tick,
+ * not just where they ended up, so a fast entity can't step over a thin one
+ * between two ticks.
+ */
+public class CollisionSystem {
+  private final CollisionGrid grid;
+
+  // every store that has a rule, numbered by position
+  private EntityStore<?>[] stores = new EntityStore<?>[0];
+  private boolean[] sweptStores = new boolean[0];
+
+  // the rules: the stores of the first and second entities, and the response
+  private int ruleCount;
+  private int[] firstStores = new int[0];
+  private int[] secondStores = new int[0];
+  private CollisionResponse[] responses = new CollisionResponse[0];
+
+  // the contacts found for each rule, as pairs of first and second indexes
+  private int[][] contacts = new int[0][];
+  private int[] contactCounts = new int[0];
+
+  // where the entries of each store are in the cell being checked
+  private int[] segmentStart = new int[0];
+  private int[] segmentEnd = new int[0];
+
+  /**
+   * Creates a collision system with no rules.
+   *
+   * @param width
+   *          - the width of the playfield
+   * @param height
+   *          - the height of the playfield
+   * @param cellSize
+   *          - the size of the collision grid cells
+   */
+  public CollisionSystem(int width, int height, int cellSize) {
+    this.grid = new CollisionGrid(width, height, cellSize);
+  }
+
+  /**
+   * Adds a rule: the entities of the first store collide with the entities of
+   * the second one, and the response handles what happens then.
+   *
+   * @param first
+   *          - the store of the first entities
+   * @param second
+   *          - the store of the second entities
+   * @param response
+   *          - what happens when they collide
+   */
+  public void addRule(EntityStore<?> first, EntityStore<?> second, CollisionResponse response) {
+    firstStores = Arrays.copyOf(firstStores, ruleCount + 1);
+    secondStores = Arrays.copyOf(secondStores, ruleCount + 1);
+    responses = Arrays.copyOf(responses, ruleCount + 1);
+    contacts = Arrays.copyOf(contacts, ruleCount + 1);
+    contactCounts = Arrays.copyOf(contactCounts, ruleCount + 1);
+
+    firstStores[ruleCount] = storeNumber(first);
+    secondStores[ruleCount] = storeNumber(second);
+    responses[ruleCount] = response;
+    contacts[ruleCount] = new int[16];
+    ruleCount++;
+  }
+
+  /**
+   * Returns the number of a store, adding it to the known stores if needed.
+   */
+  private int storeNumber(EntityStore<?> store) {
+    for (int s = 0; s < stores.length; s++) {
+      if (stores[s] == store) {
+        return s;
+      }
+    }
+    stores = Arrays.copyOf(stores, stores.length + 1);
+    stores[stores.length - 1] = store;
+    sweptStores = Arrays.copyOf(sweptStores, stores.length);
+    segmentStart = new int[stores.length];
+    segmentEnd = new int[stores.length];
+    return stores.length - 1;
+  }
+
+  /**
+   * Marks a store as holding fast entities, whose collisions should be checked
+   * along the whole path they moved during the tick.
+   *
+   * @param store
+   *          - the store of fast entities
+   */
+  public void setSwept(EntityStore<?> store) {
+    int s = storeNumber(store);
+    sweptStores[s] = true;
+  }
+
+  /**
+   * Finds all the collisions between the entities, and handles them.
+   *
+   * @param currentTime
+   *          - the time of the current tick, in milliseconds
+   */
+  public void update(long currentTime) {
+    findContacts();
+    handleContacts(currentTime);
+  }
+
+  /**
+   * Goes through the cells of the grid once, finding the overlapping pairs
+   * that have a rule.
+   */
+  private void findContacts() {
+    grid.build(stores);
+    Arrays.fill(contactCounts, 0);
+
+    for (int cell = 0; cell < grid.getCellCount(); cell++) {
+      int start = grid.getCellStart(cell);
+      int end = grid.getCellEnd(cell);
+      if (end - start < 2) {
+        continue;
+      }
+
+      // the entries of each store come together in the cell
+      Arrays.fill(segmentStart, 0);
+      Arrays.fill(segmentEnd, 0);
+      for (int e = start; e < end; e++) {
+        int s = grid.getStore(e);
+        if (segmentEnd[s] <= segmentStart[s]) {
+          segmentStart[s] = e;
+        }
+        segmentEnd[s] = e + 1;
+      }
+
+      for (int r = 0; r < ruleCount; r++) {
+        findContacts(cell, r);
+      }
+    }
+  }
+
+  /**
+   * Finds the overlapping pairs for one rule in one cell. Pairs that share
+   * more than one cell are only taken in the cell where their overlap starts.
+   */
+  private void findContacts(int cell, int rule) {
+    int a = firstStores[rule];
+    int b = secondStores[rule];
+    if (segmentEnd[a] <= segmentStart[a] || segmentEnd[b] <= segmentStart[b]) {
+      return;
+    }
+
+    EntityStore<?> first = stores[a];
+    EntityStore<?> second = stores[b];
+    boolean swept = isSwept(rule);
+    for (int ea = segmentStart[a]; ea < segmentEnd[a]; ea++) {
+      int i = grid.getIndex(ea);
+      for (int eb = (a == b ? ea + 1 : segmentStart[b]); eb < segmentEnd[b]; eb++) {
+        int j = grid.getIndex(eb);
+        if (intersects(swept, first, i, second, j) && overlapCell(first, i, second, j) == cell) {
+          addContact(rule, i, j);
+        }
+      }
+    }
+  }
+
+  /**
+   * Indicates if a rule checks the paths of its entities.
+   */
+  private boolean isSwept(int rule) {
+    return sweptStores[firstStores[rule]] || sweptStores[secondStores[rule]];
+  }
+
+  /**
+   * Checks if two entities collide, along their paths or where they are now.
+   */
+  private static boolean intersects(boolean swept, EntityStore<?> first, int i,
+      EntityStore<?> second, int j) {
+    return swept ? first.sweptIntersects(i, second, j) : first.intersects(i, second, j);
+  }
+
+  /**
+   * Returns the cell holding the top-left corner of the overlap between the
+   * boxes the grid lists two entities by. Both entities are listed in that
+   * cell, and only that one is used for the pair.
+   */
+  private int overlapCell(EntityStore<?> first, int i, EntityStore<?> second, int j) {
+    int x = Math.max(Math.min(first.getX(i), first.getPreviousX(i)),
+        Math.min(second.getX(j), second.getPreviousX(j)));
+    int y = Math.max(Math.min(first.getY(i), first.getPreviousY(i)),
+        Math.min(second.getY(j), second.getPreviousY(j)));
+    return grid.getCell(x, y);
+  }
+
+  /**
+   * Adds a contact to the ones found for a rule.
+   */
+  private void addContact(int rule, int first, int second) {
+    int count = contactCounts[rule];
+    if (2 * count + 2 > contacts[rule].length) {
+      contacts[rule] = Arrays.copyOf(contacts[rule], contacts[rule].length * 2);
+    }
+    contacts[rule][2 * count] = first;
+    contacts[rule][2 * count + 1] = second;
+    contactCounts[rule] = count + 1;
+  }
+
+  /**
+   * Handles the contacts found, rule by rule.
+   */
+  private void handleContacts(long currentTime) {
+    for (int r = 0; r < ruleCount; r++) {
+      EntityStore<?> first = stores[firstStores[r]];
+      EntityStore<?> second = stores[secondStores[r]];
+      int[] pairs = contacts[r];
+      boolean swept = isSwept(r);
+      for (int k = 0; k < contactCounts[r]; k++) {
+        int i = pairs[2 * k];
+        int j = pairs[2 * k + 1];
+
+        // an earlier response may have moved or removed one of them
+        if (intersects(swept, first, i, second, j)) {
+          responses[r].collide(i, j, currentTime);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,121 @@
+package rbadia.voidspace.main;
+
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.util.Arrays;
+
+import javax.swing.JComponent;
+
+/**
+ * Keeps track of the parts of the game screen drawn in the current and the
+ * previous frame, so a frame only has to clear and repaint those parts
+ * instead of the whole screen.
+ *
+ * Each frame, the regions drawn in the previous frame are restored from the
+ * background, everything is drawn again, adding the regions it covers, and
+ * both the old and the new regions are repainted. Then nextFrame() makes the
+ * new regions the old ones.
+ */
+public class DirtyRegions {
+  private final int width;
+  private final int height;
+
+  // the regions drawn this frame and last frame, as x, y, width, height
+  private int count;
+  private int[] regions = new int[4 * 64];
+  private int previousCount;
+  private int[] previousRegions = new int[4 * 64];
+
+  /**
+   * Creates a new tracker for a screen of the given size.
+   *
+   * @param width
+   *          - the width of the screen
+   * @param height
+   *          - the height of the screen
+   */
+  public DirtyRegions(int width, int height) {
+    this.width = width;
+    this.height = height;
+  }
+
+  /**
+   * Adds a region drawn in the current frame. Regions are clipped to the
+   * screen.
+   *
+   * @param x
+   *          - the x coordinate of the region
+   * @param y
+   *          - the y coordinate of the region
+   * @param w
+   *          - the width of the region
+   * @param h
+   *          - the height of the region
+   */
+  public void add(int x, int y, int w, int h) {
+    int left = Math.max(x, 0);
+    int top = Math.max(y, 0);
+    int right = Math.min(x + w, width);
+    int bottom = Math.min(y + h, height);
+    if (left >= right || top >= bottom) {
+      return;
+    }
+    if (4 * count + 4 > regions.length) {
+      regions = Arrays.copyOf(regions, regions.length * 2);
+    }
+    regions[4 * count] = left;
+    regions[4 * count + 1] = top;
+    regions[4 * count + 2] = right - left;
+    regions[4 * count + 3] = bottom - top;
+    count++;
+  }
+
+  /**
+   * Clears the regions drawn in the previous frame, copying them from the
+   * background.
+   *
+   * @param g2d
+   *          - the graphics canvas of the screen
+   * @param background
+   *          - the background image, the size of the screen
+   */
+  public void restore(Graphics2D g2d, Image background) {
+    for (int k = 0; k < previousCount; k++) {
+      int x = previousRegions[4 * k];
+      int y = previousRegions[4 * k + 1];
+      int w = previousRegions[4 * k + 2];
+      int h = previousRegions[4 * k + 3];
+      g2d.drawImage(background, x, y, x + w, y + h, x, y, x + w, y + h, null);
+    }
+  }
+
+  /**
+   * Asks Swing to repaint the regions drawn in the previous and the current
+   * frame.
+   *
+   * @param component
+   *          - the component showing the screen
+   */
+  public void repaint(JComponent component) {
+    for (int k = 0; k < previousCount; k++) {
+      component.repaint(previousRegions[4 * k], previousRegions[4 * k + 1],
+          previousRegions[4 * k + 2], previousRegions[4 * k + 3]);
+    }
+    for (int k = 0; k < count; k++) {
+      component.repaint(regions[4 * k], regions[4 * k + 1], regions[4 * k + 2],
+          regions[4 * k + 3]);
+    }
+  }
+
+  /**
+   * Starts a new frame: the regions of the current frame become the previous
+   * frame's.
+   */
+  public void nextFrame() {
+    int[] swap = previousRegions;
+    previousRegions = regions;
+    regions = swap;
+    previousCount = count;
+    count = 0;
+  }
+}
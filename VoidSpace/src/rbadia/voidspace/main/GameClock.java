@@ -0,0 +1,79 @@
+package rbadia.voidspace.main;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The game's clock. It is sampled once at the start of each tick, and every
+ * time-based game rule (explosion delays, fire cooldowns, sinusoidal movement,
+ * message delays) reads the tick time from it instead of asking the system.
+ * 
+ * The clock advances exactly one tick length per tick, no matter how much
+ * real time has passed. The game loop keeps the ticks in step with real time,
+ * so game time stays evenly spaced even when the loop runs several ticks at
+ * once to catch up; a headless game can fast-forward it, and gives the same
+ * results on every run.
+ */
+public class GameClock {
+  private long ticks;
+  private long time;
+
+  /**
+   * Advances the clock for a new tick. Should be called exactly once at the
+   * start of each tick.
+   */
+  public void tick() {
+    ticks++;
+    time = getTime(ticks);
+  }
+
+  /**
+   * Returns the time of the clock at the given tick.
+   * 
+   * @param tick
+   *          - the number of the tick, counting from 1
+   * @return the time of the tick, in milliseconds since the clock started
+   */
+  public static long getTime(long tick) {
+    return tick * 1000 / GameSettings.TICKS_PER_SECOND;
+  }
+
+  /**
+   * Returns the time of the current tick.
+   * 
+   * @return the time of the current tick, in milliseconds since the clock
+   *         started
+   */
+  public long getTime() {
+    return time;
+  }
+
+  /**
+   * Returns the number of ticks since the clock started.
+   * 
+   * @return the number of ticks
+   */
+  public long getTicks() {
+    return ticks;
+  }
+
+  /**
+   * Writes the clock's state to a buffer.
+   * 
+   * @param out
+   *          - the buffer to write to
+   */
+  public void saveState(ByteBuffer out) {
+    out.putLong(ticks).putLong(time);
+  }
+
+  /**
+   * Restores the clock's state from a buffer written by saveState().
+   * 
+   * @param in
+   *          - the buffer to read from
+   */
+  public void restoreState(ByteBuffer in) {
+    ticks = in.getLong();
+    time = in.getLong();
+  }
+}
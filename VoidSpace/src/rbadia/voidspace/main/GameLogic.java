@@ -1,54 +1,163 @@
 package rbadia.voidspace.main;
 
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
-import java.util.ArrayList;
-import java.util.List;
-
-import javax.swing.Timer;
+import java.awt.Rectangle;
+import java.nio.ByteBuffer;
 
+import rbadia.voidspace.graphics.GraphicsManager;
 import rbadia.voidspace.model.Asteroid;
 import rbadia.voidspace.model.Bullet;
 import rbadia.voidspace.model.ChuckNorris;
 import rbadia.voidspace.model.EnemyBullet;
 import rbadia.voidspace.model.EnemyShip;
+import rbadia.voidspace.model.Entity;
+import rbadia.voidspace.model.EntityPool;
+import rbadia.voidspace.model.EntityStore;
+import rbadia.voidspace.model.GameRandom;
 import rbadia.voidspace.model.Ship;
+import rbadia.voidspace.model.WorldBounds;
 import rbadia.voidspace.sounds.SoundManager;
 
 /**
- * Handles general game logic and status.
+ * Handles general game logic and status: moves everything in the game world
+ * and checks for collisions. Does not depend on any display, so it can also be
+ * run headless.
  */
 public class GameLogic {
-  private GameScreen gameScreen;
+  private WorldBounds bounds;
   private GameStatus status;
   private SoundManager soundMan;
+  private GameClock clock;
+
+  private long lastShipTime;
+  private long getReadyEndTime;
+  private long gameOverEndTime;
+
+  private Rectangle asteroidExplosion;
+  private Rectangle shipExplosion;
+  private Rectangle enemyShipExplosion;
+
+  private GameRandom random;
 
   private Ship ship;
-  private ArrayList<Asteroid> asteroids;
-  private ArrayList<EnemyShip> enemyShips;
-  private ArrayList<ChuckNorris> chuckNorriss;
-  private List<Bullet> bullets;
-  private List<EnemyBullet> enemyBullets;
+  private EntityStore<Ship> ships;
+  private EntityStore<Asteroid> asteroids;
+  private EntityStore<EnemyShip> enemyShips;
+  private EntityStore<ChuckNorris> chuckNorriss;
+  private EntityPool<Bullet> bullets;
+  private EntityPool<EnemyBullet> enemyBullets;
+
+  private CollisionSystem collisions;
 
   /**
    * Create a new game logic handler
    * 
-   * @param gameScreen
-   *          the game screen
+   * @param bounds
+   *          the bounds of the game world, usually the game screen
+   * @param soundMan
+   *          the sound manager
+   * @param clock
+   *          the game clock, ticked once before each game update
+   * @param random
+   *          the random number service all random decisions are taken from
    */
-  public GameLogic(GameScreen gameScreen) {
-    this.gameScreen = gameScreen;
+  public GameLogic(WorldBounds bounds, SoundManager soundMan, GameClock clock,
+      GameRandom random) {
+    this.bounds = bounds;
+    this.soundMan = soundMan;
+    this.clock = clock;
+    this.random = random;
 
     // initialize game status information
     status = new GameStatus();
-    // initialize the sound manager
-    soundMan = new SoundManager();
+    status.setGameLogic(this);
+
+    // init the entity stores, reused from game to game
+    ships = new EntityStore<Ship>(1);
+    bullets = new EntityPool<Bullet>(GameSettings.MAX_BULLETS) {
+      protected Bullet create() {
+        return new Bullet(this);
+      }
+    };
+    enemyBullets = new EntityPool<EnemyBullet>(GameSettings.MAX_ENEMY_BULLETS) {
+      protected EnemyBullet create() {
+        return new EnemyBullet(this);
+      }
+    };
+    asteroids = new EntityStore<Asteroid>();
+    enemyShips = new EntityStore<EnemyShip>();
+    chuckNorriss = new EntityStore<ChuckNorris>();
+
+    collisions = new CollisionSystem(GameSettings.GAME_FRAME_X_SIZE,
+        GameSettings.GAME_FRAME_Y_SIZE, GameSettings.COLLISION_CELL_SIZE);
+    addCollisionRules();
+  }
+
+  /**
+   * Confirms collisions with the solid pixels of the sprites, instead of their
+   * bounds alone. Headless games should use the same masks as the displayed
+   * game, so they play the same way.
+   * 
+   * @param graphicsMan
+   *          - the graphics manager holding the sprites' collision masks
+   */
+  public void setCollisionMasks(GraphicsManager graphicsMan) {
+    ships.setMask(graphicsMan.getShipMask());
+    asteroids.setMask(graphicsMan.getAsteroidMask());
+    chuckNorriss.setMask(graphicsMan.getChuckNorrisMask());
+    enemyShips.setMask(graphicsMan.getEnemyShipMask());
+    bullets.setMask(graphicsMan.getBulletMask());
+    enemyBullets.setMask(graphicsMan.getEnemyBulletMask());
+  }
+
+  /**
+   * Declares which entities collide and what happens when they do. When an
+   * entity is in more than one collision, the rules added first win.
+   */
+  private void addCollisionRules() {
+    // bullets move further than their own height in one tick
+    collisions.setSwept(bullets);
+    collisions.setSwept(enemyBullets);
 
-    // init some variables
-    bullets = new ArrayList<Bullet>();
-    enemyBullets = new ArrayList<EnemyBullet>();
-    asteroids = new ArrayList<Asteroid>();
-    chuckNorriss = new ArrayList<ChuckNorris>();
+    collisions.addRule(bullets, asteroids, new CollisionResponse() {
+      public void collide(int bullet, int asteroid, long currentTime) {
+        bulletHitsAsteroid(bullet, asteroid, currentTime);
+      }
+    });
+    collisions.addRule(bullets, chuckNorriss, new CollisionResponse() {
+      public void collide(int bullet, int chuckNorris, long currentTime) {
+        bulletHitsChuckNorris(bullet, chuckNorris);
+      }
+    });
+    collisions.addRule(bullets, enemyShips, new CollisionResponse() {
+      public void collide(int bullet, int enemyShip, long currentTime) {
+        bulletHitsEnemyShip(bullet, enemyShip, currentTime);
+      }
+    });
+    collisions.addRule(enemyBullets, ships, new CollisionResponse() {
+      public void collide(int enemyBullet, int ship, long currentTime) {
+        enemyBulletHitsShip(enemyBullet, currentTime);
+      }
+    });
+    collisions.addRule(asteroids, ships, new CollisionResponse() {
+      public void collide(int asteroid, int ship, long currentTime) {
+        asteroidHitsShip(asteroid, currentTime);
+      }
+    });
+    collisions.addRule(chuckNorriss, ships, new CollisionResponse() {
+      public void collide(int chuckNorris, int ship, long currentTime) {
+        chuckNorrisHitsShip(currentTime);
+      }
+    });
+    collisions.addRule(enemyShips, ships, new CollisionResponse() {
+      public void collide(int enemyShip, int ship, long currentTime) {
+        enemyShipHitsShip(enemyShip, currentTime);
+      }
+    });
+    collisions.addRule(bullets, enemyBullets, new CollisionResponse() {
+      public void collide(int bullet, int enemyBullet, long currentTime) {
+        bulletHitsEnemyBullet(bullet, enemyBullet);
+      }
+    });
   }
 
   /**
@@ -70,12 +179,30 @@ public class GameLogic {
   }
 
   /**
-   * Returns the game screen
+   * Returns the game clock
+   * 
+   * @return the game clock
+   */
+  public GameClock getClock() {
+    return clock;
+  }
+
+  /**
+   * Returns the random number service
    * 
-   * @return the game screen
+   * @return the random number service
    */
-  public GameScreen getGameScreen() {
-    return gameScreen;
+  public GameRandom getRandom() {
+    return random;
+  }
+
+  /**
+   * Returns the bounds of the game world
+   * 
+   * @return the bounds of the game world
+   */
+  public WorldBounds getWorldBounds() {
+    return bounds;
   }
 
   /**
@@ -85,11 +212,11 @@ public class GameLogic {
     status.setGameStarting(true);
 
     // init game variables
-    bullets = new ArrayList<Bullet>();
-    enemyBullets = new ArrayList<EnemyBullet>();
-    asteroids = new ArrayList<Asteroid>();
-    enemyShips = new ArrayList<EnemyShip>();
-    chuckNorriss = new ArrayList<ChuckNorris>();
+    bullets.clear();
+    enemyBullets.clear();
+    asteroids.clear();
+    enemyShips.clear();
+    chuckNorriss.clear();
 
     // init game status
     status.setShipsLeft(GameSettings.INITIAL_NUM_OF_SHIPS);
@@ -102,39 +229,46 @@ public class GameLogic {
     status.setBulletsRemaining(GameSettings.INITIAL_BULLETS_REMAINING);
 
     // init the ship and the asteroid
-    newShip(gameScreen);
+    newShip(bounds);
 
     // make new asteroids for first level
     for (int i = 0; i < GameSettings.NUM_ASTEROIDS_L1; i++)
-      asteroids.add(newAsteroid(gameScreen));
+      newAsteroid(bounds);
 
     // make new enemyShips for first level
     for (int i = 0; i < GameSettings.NUM_ENEMY_SHIPS_L1; i++)
-      enemyShips.add(newEnemyShip(gameScreen));
+      newEnemyShip(bounds);
 
     // make new chuckNorriss for first level
     for (int i = 0; i < GameSettings.NUM_CHUCK_NORRIS_L1; i++)
-      chuckNorriss.add(newChuckNorris(gameScreen));
+      newChuckNorris(bounds);
 
-    // prepare game screen
-    gameScreen.doNewGame();
+    // init all asteroid times is not necessary
+    lastShipTime = -GameSettings.NEW_SHIP_DELAY;
 
     // delay to display "Get Ready" message for GET_READY_DELAY_TIME
     // milliseconds
-    Timer timer = new Timer(GameSettings.GET_READY_DELAY_TIME, new ActionListener() {
-      public void actionPerformed(ActionEvent e) {
-        status.setGameStarting(false);
-        status.setGameStarted(true);
-      }
-    });
-    timer.setRepeats(false);
-    timer.start();
+    getReadyEndTime = clock.getTime() + GameSettings.GET_READY_DELAY_TIME;
   }
 
   /**
    * Check game or level ending conditions.
+   * 
+   * @param currentTime
+   *          - the time of the current tick, in milliseconds
    */
-  public void checkConditions() {
+  public void checkConditions(long currentTime) {
+    // end the "Get Ready" message
+    if (status.isGameStarting() && currentTime >= getReadyEndTime) {
+      status.setGameStarting(false);
+      status.setGameStarted(true);
+    }
+
+    // end the "Game Over" message
+    if (status.isGameOver() && currentTime >= gameOverEndTime) {
+      status.setGameOver(false);
+    }
+
     // check game over conditions
     if (!status.isGameOver() && status.isGameStarted()) {
       if (status.getShipsLeft() == 0) {
@@ -143,37 +277,52 @@ public class GameLogic {
     }
   }
 
+  /**
+   * Remembers the current location of every entity, so the screen can
+   * interpolate between it and the location after the next tick.
+   */
+  public void savePositions() {
+    ships.savePositions();
+    asteroids.savePositions();
+    chuckNorriss.savePositions();
+    enemyShips.savePositions();
+    bullets.savePositions();
+    enemyBullets.savePositions();
+  }
+
   /**
    * Actions to take when the game is over.
    */
   public void gameOver() {
     status.setGameStarted(false);
     status.setGameOver(true);
-    gameScreen.doGameOver();
 
     // delay to display "Game Over" message for GAME_OVER_DELAY_TIME
     // milliseconds
-    Timer timer = new Timer(GameSettings.GAME_OVER_DELAY_TIME, new ActionListener() {
-      public void actionPerformed(ActionEvent e) {
-        status.setGameOver(false);
-      }
-    });
-    timer.setRepeats(false);
-    timer.start();
+    gameOverEndTime = clock.getTime() + GameSettings.GAME_OVER_DELAY_TIME;
   }
 
   /**
    * Fire a bullet from ship.
+   * 
+   * @return true if a bullet was fired, false if there are no bullets left or
+   *         the screen is already full of bullets
    */
-  public void fireBullet() {
+  public boolean fireBullet() {
     if (status.getBulletsRemaining() > 0) {
-      Bullet bullet = new Bullet(ship);
-      bullets.add(bullet);
+      Bullet bullet = bullets.acquire();
+      if (bullet == null) {
+        // the screen is already full of bullets
+        return false;
+      }
+      bullet.fireFrom(ship);
       soundMan.playBulletSound();
       status.setBulletsFired(status.getBulletsFired() + 1);
       if (GameSettings.BULLETS_ARE_LIMITED)
         status.setBulletsRemaining(status.getBulletsRemaining() - 1);
+      return true;
     }
+    return false;
   }
 
   // must receive as parameter the index ship that will fire
@@ -181,82 +330,738 @@ public class GameLogic {
    * Fire an enemy bullet from the enemy ship.
    */
   public void fireEnemyBullet(int index) {
-    EnemyBullet enemyBullet = new EnemyBullet(enemyShips.get(index));
-    enemyBullets.add(enemyBullet);
+    fireEnemyBullet(enemyShips.get(index));
     soundMan.playEnemyBulletSound();
   }
 
   /**
-   * Move a bullet once fired.
+   * Fire an enemy bullet from an enemy ship or a chuck norris, if the screen is
+   * not already full of enemy bullets.
    * 
-   * @param bullet
-   *          the bullet to move
-   * @return if the bullet should be removed from screen
+   * @param enemy
+   *          - the enemy firing the bullet
    */
-  public boolean moveBullet(Bullet bullet) {
-    if (bullet.getY() - bullet.getSpeed() >= 0) {
-      bullet.translate(0, -bullet.getSpeed());
-      return false;
-    } else {
-      return true;
+  private void fireEnemyBullet(Entity enemy) {
+    EnemyBullet enemyBullet = enemyBullets.acquire();
+    if (enemyBullet != null) {
+      enemyBullet.fireFrom(enemy);
     }
   }
 
   /**
-   * Move an enemy bullet once fired
+   * Create a new ship (and replace current one).
    * 
-   * @param enemyBullet
-   *          - the bullet to move
-   * @return bool - if the bullet should be removed from the screen
+   * @param bounds
+   *          - the bounds of the world where to create it
+   * @return the new ship
+   */
+  public Ship newShip(WorldBounds bounds) {
+    ships.clear();
+    this.ship = new Ship(ships, bounds);
+    return ship;
+  }
+
+  /**
+   * Create a new asteroid and add it to the game
+   * 
+   * @param bounds
+   *          - the bounds of the world where to create it
+   * @return the new asteroid
    */
-  public boolean moveEnemyBullet(EnemyBullet enemyBullet) {
-    if (enemyBullet.getY() - enemyBullet.getSpeed() >= 0) {
-      enemyBullet.translate(0, -enemyBullet.getSpeed());
-      return false;
+  public Asteroid newAsteroid(WorldBounds bounds) {
+    return new Asteroid(asteroids, bounds, random);
+  }
+
+  /**
+   * Create a new Chuck Norris and add him to the game
+   * 
+   * @param bounds
+   *          - the bounds of the world where to create it
+   * @return the new chuck norris
+   */
+  public ChuckNorris newChuckNorris(WorldBounds bounds) {
+    return new ChuckNorris(chuckNorriss, bounds, random);
+  }
+
+  /**
+   * Create a new enemy ship and add it to the game
+   * 
+   * @param bounds
+   *          - the bounds of the world where to create it
+   * @return the new enemy ship
+   */
+  public EnemyShip newEnemyShip(WorldBounds bounds) {
+    return new EnemyShip(enemyShips, bounds, random);
+  }
+
+  /**
+   * Advance the game by one simulation tick: move everything on the screen
+   * and check for collisions.
+   * 
+   * @param currentTime
+   *          - the time of the current tick, in milliseconds
+   */
+  public void update(long currentTime) {
+
+    // nothing moves on the "Get Ready", "Game Over" and title screens
+    if (status.isGameStarting() || status.isGameOver() || !status.isGameStarted()) {
+      return;
+    }
+
+    // move Asteroids
+    moveAsteroids(asteroids, currentTime);
+
+    // move Chuck Norris
+    moveAsteroids(chuckNorriss, currentTime);
+
+    // move enemyShip
+    moveEnemyShip(enemyShips, currentTime);
+
+    // move bullets
+    moveBullets(bullets);
+
+    // move enemyBullets
+    moveEnemyBullets(enemyBullets);
+
+    // update ship
+    updateShip(currentTime);
+
+    // check all collisions
+    collisions.update(currentTime);
+
+    // take out the bullets that left the screen or hit something
+    bullets.removeMarked();
+    enemyBullets.removeMarked();
+  }
+
+  /**
+   * Takes a snapshot of everything that should be drawn for the current tick.
+   * Called by the simulation thread after each tick.
+   * 
+   * @param tickTime
+   *          - the System.nanoTime() at which the tick ended
+   * @return the new snapshot
+   */
+  public GameSnapshot createSnapshot(long tickTime) {
+
+    int capacity = 1 + asteroids.size() + chuckNorriss.size() + bullets.size()
+        + enemyBullets.size() + enemyShips.size();
+    GameSnapshot snapshot = new GameSnapshot(status.publish(), tickTime, capacity);
+
+    // nothing to draw while the "Get Ready" message or the title screen shows
+    if (status.isGameStarting() || (!status.isGameStarted() && !status.isGameOver())) {
+      return snapshot;
+    }
+
+    // if the game is over, only draw the explosions until their time passes
+    if (status.isGameOver()) {
+      long currentTime = clock.getTime();
+
+      for (int i = 0; i < asteroids.size(); i++) {
+        if ((currentTime - asteroids.getLastTime(i)) < GameSettings.NEW_ASTEROID_DELAY) {
+          addExplosion(snapshot, GameSnapshot.ASTEROID_EXPLOSION, asteroidExplosion);
+        }
+      }
+
+      for (int i = 0; i < enemyShips.size(); i++) {
+        if ((currentTime - enemyShips.getLastTime(i)) < GameSettings.NEW_ENEMY_SHIP_DELAY) {
+          addExplosion(snapshot, GameSnapshot.ENEMY_SHIP_EXPLOSION, enemyShipExplosion);
+        }
+      }
+
+      if ((currentTime - lastShipTime) < GameSettings.NEW_SHIP_DELAY) {
+        addExplosion(snapshot, GameSnapshot.SHIP_EXPLOSION, shipExplosion);
+      }
+      return snapshot;
+    }
+
+    // asteroids, or their explosions
+    addSprites(snapshot, GameSnapshot.ASTEROID, asteroids, GameSnapshot.ASTEROID_EXPLOSION,
+        asteroidExplosion);
+
+    // chuck norris, or his (rare) explosions
+    addSprites(snapshot, GameSnapshot.CHUCK_NORRIS, chuckNorriss,
+        GameSnapshot.ASTEROID_EXPLOSION, asteroidExplosion);
+
+    // enemy ships, or their explosions
+    addSprites(snapshot, GameSnapshot.ENEMY_SHIP, enemyShips, GameSnapshot.ENEMY_SHIP_EXPLOSION,
+        enemyShipExplosion);
+
+    // bullets
+    addSprites(snapshot, GameSnapshot.BULLET, bullets, 0, null);
+
+    // enemy bullets
+    addSprites(snapshot, GameSnapshot.ENEMY_BULLET, enemyBullets, 0, null);
+
+    // ship, or its explosion
+    if (!status.isNewShip()) {
+      snapshot.addSprite(GameSnapshot.SHIP, ship.getPreviousX(), ship.getPreviousY(),
+          ship.getX(), ship.getY());
     } else {
-      return true;
+      addExplosion(snapshot, GameSnapshot.SHIP_EXPLOSION, shipExplosion);
     }
+
+    return snapshot;
   }
 
   /**
-   * Create a new ship (and replace current one).
+   * Adds every entity in a store to a snapshot, moving from where it was at
+   * the start of the tick to where it is now. New entities are drawn as the
+   * given explosion instead.
    */
-  public Ship newShip(GameScreen screen) {
-    this.ship = new Ship(screen);
-    return ship;
+  private void addSprites(GameSnapshot snapshot, int kind, EntityStore<?> store,
+      int explosionKind, Rectangle explosion) {
+    for (int i = 0; i < store.size(); i++) {
+      if (!store.isNew(i)) {
+        snapshot.addSprite(kind, store.getPreviousX(i), store.getPreviousY(i), store.getX(i),
+            store.getY(i));
+      } else {
+        addExplosion(snapshot, explosionKind, explosion);
+      }
+    }
   }
 
   /**
-   * Create a new asteroid
+   * Adds an explosion to a snapshot, if there has been one.
+   */
+  private void addExplosion(GameSnapshot snapshot, int kind, Rectangle explosion) {
+    if (explosion != null) {
+      snapshot.addSprite(kind, explosion.x, explosion.y, explosion.x, explosion.y);
+    }
+  }
+
+  /**
+   * Moves the asteroids (or chuck norriss) on the screen
    * 
-   * @param screen
-   *          - the game screen where to create it
-   * @return the new asteroid
+   * @param asteroids
+   *          - the store of asteroids to be moved
+   * @param currentTime
+   *          - the time of the current tick, in milliseconds
    */
-  public Asteroid newAsteroid(GameScreen screen) {
-    return new Asteroid(screen);
+  private void moveAsteroids(EntityStore<? extends Asteroid> asteroids, long currentTime) {
+    int level = status.getLevel();
+    int width = bounds.getWidth();
+    int height = bounds.getHeight();
+
+    // move asteroid
+    for (int i = 0; i < asteroids.size(); i++) {
+      if (!asteroids.isNew(i)) {
+        // move the asteroid until it reaches the bottom of the screen
+
+        int speed = asteroids.getSpeed(i);
+        int horizontalTranslation;
+        int verticalTranslation;
+        if (asteroids.getY(i) + speed < height) {
+
+          // change horizontal displacement speed
+          if (level < GameSettings.LEVEL_TO_MOVE_ASTEROIDS) {
+            horizontalTranslation = 0;
+          } else if (GameSettings.ASTEROID_SINUSOIDAL_MOVEMENT) {
+            double cs = Math.cos(currentTime / 1000.0 + asteroids.getRandomMultiplier(i));
+            horizontalTranslation = (int) (3 * cs + 2 * cs * cs * cs);
+          }
+          // else if(GameSettings.ASTEROID_NELIANS_TECATEX_MOVEMENT) {
+          // horizontalTranslation = asteroid.getHorizontalSpeed() *
+          // rand.nextInt();
+          // }
+          else if (asteroids.getHorizontalLocation(i) < (width / 2)) {
+            if (GameSettings.ASTEROID_NELIANS_TECATEX_MOVEMENT)
+              horizontalTranslation = asteroids.getHorizontalSpeed(i)
+                  * (random.movement().nextInt(Asteroid.DEFAULT_SPEED) - 1) + 1;
+            else
+              horizontalTranslation = asteroids.getHorizontalSpeed(i);
+          } else {
+            if (GameSettings.ASTEROID_NELIANS_TECATEX_MOVEMENT)
+              horizontalTranslation = -asteroids.getHorizontalSpeed(i)
+                  * (random.movement().nextInt(Asteroid.DEFAULT_SPEED) - 1) + 1;
+            else
+              horizontalTranslation = -asteroids.getHorizontalSpeed(i);
+          }
+
+          // change vertical displacement speed
+          if (level < GameSettings.LEVEL_TO_MOVE_ASTEROIDS_2X) {
+            verticalTranslation = speed;
+          } else if (level < GameSettings.LEVEL_TO_MOVE_ASTEROIDS_3X) {
+            verticalTranslation = (int) (speed * GameSettings.SPEED_TO_MOVE_ASTEROIDS_2X);
+          } else {
+            verticalTranslation = (int) (speed * GameSettings.SPEED_TO_MOVE_ASTEROIDS_3X);
+          }
+
+          // for sinosoidal path
+          // double cs = Math.cos(currentTime / 1000.0);
+          /* (int) (3*cs + 2*cs*cs*cs) */
+          asteroids.translate(i, horizontalTranslation, verticalTranslation);
+        } else {
+          asteroids.setLocation(i, random.spawn().nextInt(width - asteroids.getWidth(i)), 0);
+          asteroids.setHorizontalSpeed(i, random.movement().nextInt(speed));
+
+        }
+      } else {
+        // check the individual last asteroid's time
+        if ((currentTime - asteroids.getLastTime(i)) > GameSettings.NEW_ASTEROID_DELAY) {
+          // a new asteroid
+          asteroids.setLastTime(i, currentTime);
+          asteroids.setNew(i, false);
+          asteroids.setLocation(i, random.spawn().nextInt(width - asteroids.getWidth(i)), 0);
+        }
+      }
+    }
+
   }
 
   /**
-   * Create a new Chuck Norris
+   * Moves the enemy ships on the screen, and fires their bullets
    * 
-   * @param screen
-   *          - the game screen where to create it
-   * @return the new chuck norris
+   * @param enemyShips
+   *          - the store of enemy ships to be moved
+   * @param currentTime
+   *          - the time of the current tick, in milliseconds
    */
-  public ChuckNorris newChuckNorris(GameScreen screen) {
-    return new ChuckNorris(screen);
+  private void moveEnemyShip(EntityStore<EnemyShip> enemyShips, long currentTime) {
+    int level = status.getLevel();
+    int width = bounds.getWidth();
+    int height = bounds.getHeight();
+
+    // move enemyShip
+    for (int i = 0; i < enemyShips.size(); i++) {
+      if (!enemyShips.isNew(i)) {
+        // move the enemyShip until it reaches the bottom of the screen
+
+        int speed = enemyShips.getSpeed(i);
+        int horizontalTranslation;
+        int verticalTranslation;
+        if (enemyShips.getY(i) + speed < height) {
+
+          double cs = Math.cos(currentTime / 1000.0 + enemyShips.getRandomMultiplier(i));
+
+          if (level < GameSettings.LEVEL_TO_MOVE_ENEMY_SHIP_2X) {
+            verticalTranslation = speed;
+            horizontalTranslation = (int) (3 * cs + 2 * cs * cs * cs);
+          } else if (level < GameSettings.LEVEL_TO_MOVE_ENEMY_SHIP_3X) {
+            verticalTranslation = (int) (speed * GameSettings.SPEED_TO_MOVE_ENEMY_SHIP_2X);
+            horizontalTranslation = (int) (3 * cs + 2 * cs * cs * cs);
+          } else {
+            verticalTranslation = (int) (speed * GameSettings.SPEED_TO_MOVE_ENEMY_SHIP_3X);
+            horizontalTranslation = (int) (5 * cs + 2 * cs * cs * cs);
+          }
+
+          enemyShips.translate(i, horizontalTranslation, verticalTranslation);
+
+          // fire enemy bullets
+          if ((currentTime - enemyShips.getFireTime(i)) > enemyShips.getCooldown(i)) {
+            enemyShips.setFireTime(i, currentTime);
+            fireEnemyBullet(i);
+            enemyShips.get(i).changeCooldown();
+          }
+
+        } else {
+          enemyShips.setLocation(i, random.spawn().nextInt(width - enemyShips.getWidth(i)), 0);
+          enemyShips.setHorizontalSpeed(i, random.movement().nextInt(speed));
+
+        }
+      } else {
+        if ((currentTime - enemyShips.getLastTime(i)) > GameSettings.NEW_ENEMY_SHIP_DELAY) {
+          // a new enemy ship (plus fired bullet)
+          enemyShips.setLastTime(i, currentTime);
+          enemyShips.setNew(i, false);
+          enemyShips.setLocation(i, random.spawn().nextInt(width - enemyShips.getWidth(i)), 0);
+          fireEnemyBullet(i);
+        }
+      }
+    }
   }
 
   /**
-   * Create a new enemy ship
+   * Moves the palyer's bullets, removing the ones that left the screen
    * 
-   * @param screen
-   *          - the game screen where to create it
-   * @return the new enemy ship
+   * @param bullets
+   *          - the pool of bullets to be moved
+   */
+  private void moveBullets(EntityPool<Bullet> bullets) {
+    for (int i = 0; i < bullets.size(); i++) {
+      int speed = bullets.getSpeed(i);
+      if (bullets.getY(i) - speed >= 0) {
+        bullets.translate(i, 0, -speed);
+      } else {
+        bullets.markRemoved(i);
+      }
+    }
+  }
+
+  /**
+   * Moves the enemy ship's bullets, removing the ones that left the screen
+   * 
+   * @param enemyBullets
+   *          - the pool of enemy bullets to be moved
+   */
+  private void moveEnemyBullets(EntityPool<EnemyBullet> enemyBullets) {
+    int height = bounds.getHeight();
+    for (int i = 0; i < enemyBullets.size(); i++) {
+      // enemy bullets have a negative speed, they move down
+      int speed = enemyBullets.getSpeed(i);
+      if (enemyBullets.getY(i) - speed < height) {
+        enemyBullets.translate(i, 0, -speed);
+      } else {
+        enemyBullets.markRemoved(i);
+      }
+    }
+  }
+
+  /**
+   * Replaces the player's ship once its explosion is over
+   * 
+   * @param currentTime
+   *          - the time of the current tick, in milliseconds
+   */
+  private void updateShip(long currentTime) {
+    if (status.isNewShip()) {
+      if ((currentTime - lastShipTime) > GameSettings.NEW_SHIP_DELAY) {
+        // a new one
+        lastShipTime = currentTime;
+        status.setNewShip(false);
+        newShip(bounds);
+      }
+    }
+  }
+
+  /**
+   * Explodes the entity at the given index: remembers where the explosion is,
+   * moves the entity off the screen and marks it as new until it reappears.
+   * The bounds are written into the given rectangle if there is one.
+   * 
+   * @return the bounds of the explosion
+   */
+  private Rectangle explode(EntityStore<?> store, int i, Rectangle explosion,
+      long currentTime) {
+    if (explosion == null) {
+      explosion = new Rectangle();
+    }
+    explosion.setBounds(store.getX(i), store.getY(i), store.getWidth(i), store.getHeight(i));
+    store.setLocation(i, -store.getWidth(i), -store.getHeight(i));
+    store.setNew(i, true);
+    store.setLastTime(i, currentTime);
+    return explosion;
+  }
+
+  /**
+   * Explodes the player's ship, taking away one of the ships left and moving
+   * it off the screen until a new one is ready.
+   */
+  private void explodeShip(long currentTime) {
+    // decrease number of ships left
+    status.setShipsLeft(status.getShipsLeft() - 1);
+
+    // "remove" ship
+    if (shipExplosion == null) {
+      shipExplosion = new Rectangle();
+    }
+    shipExplosion.setBounds(ship.getX(), ship.getY(), ship.getWidth(), ship.getHeight());
+    ship.setLocation(bounds.getWidth() + ship.getWidth(), -ship.getHeight());
+    status.setNewShip(true);
+    lastShipTime = currentTime;
+  }
+
+  /**
+   * A player's bullet hits an enemy ship
+   * 
+   * @param bullet
+   *          - the index of the bullet
+   * @param enemyShip
+   *          - the index of the enemy ship
+   * @param currentTime
+   *          - the time of the current tick, in milliseconds
+   */
+  private void bulletHitsEnemyShip(int bullet, int enemyShip, long currentTime) {
+    // increase asteroids destroyed count
+    status.setEnemyShipsDestroyed(status.getEnemyShipsDestroyed() + 1);
+
+    // "remove" enemyShip
+    enemyShipExplosion = explode(enemyShips, enemyShip, enemyShipExplosion, currentTime);
+
+    // play asteroid explosion sound
+    soundMan.playEnemyShipExplosionSound();
+
+    // remove bullet
+    bullets.markRemoved(bullet);
+  }
+
+  /**
+   * A player's bullet hits chuck norris, who fires back
+   * 
+   * @param bullet
+   *          - the index of the bullet
+   * @param chuckNorris
+   *          - the index of the chuck norris
+   */
+  private void bulletHitsChuckNorris(int bullet, int chuckNorris) {
+    // remove bullet
+    bullets.markRemoved(bullet);
+    fireEnemyBullet(chuckNorriss.get(chuckNorris));
+
+    // sound
+    soundMan.playChuckNorrisSound();
+  }
+
+  /**
+   * A player's bullet hits an enemy bullet, and both are destroyed.
+   * 
+   * @param bullet
+   *          - the index of the player's bullet
+   * @param enemyBullet
+   *          - the index of the enemy bullet
+   */
+  private void bulletHitsEnemyBullet(int bullet, int enemyBullet) {
+    // remove bullet
+    bullets.markRemoved(bullet);
+    enemyBullets.markRemoved(enemyBullet);
+  }
+
+  /**
+   * An enemy bullet hits the player's ship
+   * 
+   * @param enemyBullet
+   *          - the index of the enemy bullet
+   * @param currentTime
+   *          - the time of the current tick, in milliseconds
+   */
+  private void enemyBulletHitsShip(int enemyBullet, long currentTime) {
+    explodeShip(currentTime);
+
+    // play ship explosion sound
+    soundMan.playShipExplosionSound();
+
+    // remove bullet
+    enemyBullets.markRemoved(enemyBullet);
+  }
+
+  /**
+   * An enemy ship crashes into the player's ship
+   * 
+   * @param enemyShip
+   *          - the index of the enemy ship
+   * @param currentTime
+   *          - the time of the current tick, in milliseconds
+   */
+  private void enemyShipHitsShip(int enemyShip, long currentTime) {
+    // "remove" ship
+    explodeShip(currentTime);
+
+    status.setEnemyShipsDestroyed(status.getEnemyShipsDestroyed() + 1);
+
+    // "remove" enemyShip
+    enemyShipExplosion = explode(enemyShips, enemyShip, enemyShipExplosion, currentTime);
+
+    // play ship explosion sound
+    soundMan.playShipExplosionSound();
+    // play asteroid explosion sound
+    soundMan.playEnemyShipExplosionSound();
+  }
+
+  /**
+   * A player's bullet hits an asteroid
+   * 
+   * @param bullet
+   *          - the index of the bullet
+   * @param asteroid
+   *          - the index of the asteroid
+   * @param currentTime
+   *          - the time of the current tick, in milliseconds
+   */
+  private void bulletHitsAsteroid(int bullet, int asteroid, long currentTime) {
+    // increase asteroids destroyed count
+    status.setAsteroidsDestroyed(status.getAsteroidsDestroyed() + 1);
+
+    // "remove" asteroid
+    asteroidExplosion = explode(asteroids, asteroid, asteroidExplosion, currentTime);
+
+    // play asteroid explosion sound
+    soundMan.playAsteroidExplosionSound();
+
+    // remove bullet
+    bullets.markRemoved(bullet);
+  }
+
+  /**
+   * An asteroid crashes into the player's ship
+   * 
+   * @param asteroid
+   *          - the index of the asteroid
+   * @param currentTime
+   *          - the time of the current tick, in milliseconds
+   */
+  private void asteroidHitsShip(int asteroid, long currentTime) {
+    // "remove" ship
+    explodeShip(currentTime);
+
+    status.setAsteroidsDestroyed(status.getAsteroidsDestroyed() + 1);
+
+    // "remove" asteroid
+    asteroidExplosion = explode(asteroids, asteroid, asteroidExplosion, currentTime);
+
+    // play ship explosion sound
+    soundMan.playShipExplosionSound();
+    // play asteroid explosion sound
+    soundMan.playAsteroidExplosionSound();
+  }
+
+  /**
+   * Chuck norris crashes into the player's ship
+   * 
+   * @param currentTime
+   *          - the time of the current tick, in milliseconds
    */
-  public EnemyShip newEnemyShip(GameScreen screen) {
-    return new EnemyShip(screen);
+  private void chuckNorrisHitsShip(long currentTime) {
+    // "remove" ship
+    explodeShip(currentTime);
+
+    // play chuck norris explosion sound
+    soundMan.playChuckNorrisExplosionSound();
+  }
+
+  /**
+   * Writes the whole game state to a buffer: the clock, the random streams,
+   * the status and every entity, enough to carry on the same game later.
+   * 
+   * @param out
+   *          - the buffer to write to
+   */
+  public void saveState(ByteBuffer out) {
+    clock.saveState(out);
+    out.putLong(random.spawn().getState());
+    out.putLong(random.movement().getState());
+    out.putLong(random.cooldown().getState());
+    out.putLong(lastShipTime).putLong(getReadyEndTime).putLong(gameOverEndTime);
+    saveExplosion(asteroidExplosion, out);
+    saveExplosion(shipExplosion, out);
+    saveExplosion(enemyShipExplosion, out);
+    status.saveState(out);
+
+    saveEntities(ships, out);
+    saveEntities(asteroids, out);
+    saveEntities(enemyShips, out);
+    saveEntities(chuckNorriss, out);
+    out.putLong(bullets.getAcquireCount());
+    saveEntities(bullets, out);
+    out.putLong(enemyBullets.getAcquireCount());
+    saveEntities(enemyBullets, out);
+  }
+
+  /**
+   * Restores the whole game state from a buffer written by saveState(). The
+   * entities already in the game are reused.
+   * 
+   * @param in
+   *          - the buffer to read from
+   */
+  public void restoreState(ByteBuffer in) {
+    clock.restoreState(in);
+    long spawnState = in.getLong();
+    long movementState = in.getLong();
+    long cooldownState = in.getLong();
+    lastShipTime = in.getLong();
+    getReadyEndTime = in.getLong();
+    gameOverEndTime = in.getLong();
+    asteroidExplosion = restoreExplosion(asteroidExplosion, in);
+    shipExplosion = restoreExplosion(shipExplosion, in);
+    enemyShipExplosion = restoreExplosion(enemyShipExplosion, in);
+    status.restoreState(in);
+
+    // creating entities takes random numbers, so restore the streams after
+    int shipCount = in.getInt();
+    if (shipCount == 0) {
+      ships.clear();
+      ship = null;
+    } else if (ships.size() == 0) {
+      newShip(bounds);
+    }
+    restoreEntities(ships, in);
+    int asteroidCount = in.getInt();
+    while (asteroids.size() > asteroidCount)
+      asteroids.remove(asteroids.size() - 1);
+    while (asteroids.size() < asteroidCount)
+      newAsteroid(bounds);
+    restoreEntities(asteroids, in);
+    int enemyShipCount = in.getInt();
+    while (enemyShips.size() > enemyShipCount)
+      enemyShips.remove(enemyShips.size() - 1);
+    while (enemyShips.size() < enemyShipCount)
+      newEnemyShip(bounds);
+    restoreEntities(enemyShips, in);
+    int chuckNorrisCount = in.getInt();
+    while (chuckNorriss.size() > chuckNorrisCount)
+      chuckNorriss.remove(chuckNorriss.size() - 1);
+    while (chuckNorriss.size() < chuckNorrisCount)
+      newChuckNorris(bounds);
+    restoreEntities(chuckNorriss, in);
+    restorePool(bullets, in);
+    restorePool(enemyBullets, in);
+
+    random.spawn().setState(spawnState);
+    random.movement().setState(movementState);
+    random.cooldown().setState(cooldownState);
+  }
+
+  /**
+   * Writes the number of entities in a store and the state of each one.
+   */
+  private void saveEntities(EntityStore<?> store, ByteBuffer out) {
+    out.putInt(store.size());
+    for (int i = 0; i < store.size(); i++) {
+      store.saveState(i, out);
+    }
+  }
+
+  /**
+   * Restores the state of every entity in a store, once it holds as many as
+   * were saved.
+   */
+  private void restoreEntities(EntityStore<?> store, ByteBuffer in) {
+    for (int i = 0; i < store.size(); i++) {
+      store.restoreState(i, in);
+    }
+  }
+
+  /**
+   * Restores a pool written by saveState(), acquiring as many entities as
+   * were saved.
+   */
+  private void restorePool(EntityPool<?> pool, ByteBuffer in) {
+    long acquisitions = in.getLong();
+    int count = in.getInt();
+    pool.clear();
+    for (int i = 0; i < count; i++) {
+      pool.acquire();
+    }
+    restoreEntities(pool, in);
+    pool.setAcquireCount(acquisitions);
+  }
+
+  /**
+   * Writes the bounds of an explosion, if there has been one.
+   */
+  private void saveExplosion(Rectangle explosion, ByteBuffer out) {
+    if (explosion == null) {
+      out.put((byte) 0);
+    } else {
+      out.put((byte) 1);
+      out.putInt(explosion.x).putInt(explosion.y);
+      out.putInt(explosion.width).putInt(explosion.height);
+    }
+  }
+
+  /**
+   * Reads the bounds of an explosion written by saveExplosion(), reusing the
+   * given rectangle if there is one.
+   */
+  private Rectangle restoreExplosion(Rectangle explosion, ByteBuffer in) {
+    if (in.get() == 0) {
+      return null;
+    }
+    if (explosion == null) {
+      explosion = new Rectangle();
+    }
+    explosion.setBounds(in.getInt(), in.getInt(), in.getInt(), in.getInt());
+    return explosion;
   }
 
   /**
@@ -269,47 +1074,47 @@ public class GameLogic {
   }
 
   /**
-   * Returns the asteroid list.
+   * Returns the asteroid store.
    * 
-   * @return the asteroid list
+   * @return the asteroid store
    */
-  public ArrayList<Asteroid> getAsteroidList() {
+  public EntityStore<Asteroid> getAsteroidList() {
     return this.asteroids;
   }
 
   /**
-   * Returns the chuck norris list.
+   * Returns the chuck norris store.
    * 
-   * @return the chuck norris list
+   * @return the chuck norris store
    */
-  public ArrayList<ChuckNorris> getChuckNorrisList() {
+  public EntityStore<ChuckNorris> getChuckNorrisList() {
     return this.chuckNorriss;
   }
 
   /**
-   * Returns the enemy ship array list
+   * Returns the enemy ship store
    * 
-   * @return the enemy ship array list
+   * @return the enemy ship store
    */
-  public ArrayList<EnemyShip> getEnemyShipList() {
+  public EntityStore<EnemyShip> getEnemyShipList() {
     return this.enemyShips;
   }
 
   /**
-   * Returns the list of bullets.
+   * Returns the pool of bullets.
    * 
-   * @return the list of bullets
+   * @return the pool of bullets
    */
-  public List<Bullet> getBullets() {
+  public EntityPool<Bullet> getBullets() {
     return bullets;
   }
 
   /**
-   * Returns the list of enemy bullets
+   * Returns the pool of enemy bullets
    * 
    * @return
    */
-  public List<EnemyBullet> getEnemyBullets() {
+  public EntityPool<EnemyBullet> getEnemyBullets() {
     return enemyBullets;
   }
 }
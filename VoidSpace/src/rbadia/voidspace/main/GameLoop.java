@@ -1,26 +1,47 @@
 package rbadia.voidspace.main;
 
+import java.nio.ByteBuffer;
+
 /**
  * Implements the main game loop, i.e. what actions should be taken on each
- * frame update.
+ * simulation tick. The game loop owns the game state; it runs on its own
+ * thread and publishes a snapshot of the game after every batch of ticks for
+ * the render loop to draw.
+ * 
+ * The game is simulated with a fixed time step: elapsed time (measured with
+ * System.nanoTime()) is accumulated and the game logic is stepped exactly once
+ * for every TICKS_PER_SECOND-th of a second that has passed. When the loop
+ * runs late it catches up with several ticks in one iteration, up to
+ * MAX_CATCH_UP_TICKS, and the rest of the backlog is dropped. The render loop
+ * draws on its own thread, so this caps the ticks per loop iteration, not per
+ * rendered frame.
  */
 public class GameLoop implements Runnable {
-  private GameScreen gameScreen;
+  private static final long NANOS_PER_SECOND = 1000000000L;
+  static final long TICK_NANOS = NANOS_PER_SECOND / GameSettings.TICKS_PER_SECOND;
+
   private GameLogic gameLogic;
   private InputHandler inputHandler;
+  private InputRecorder recorder;
+
+  // the game saved with the quick save key
+  private final GameState quickSave = new GameState();
+
+  // the last published snapshot
+  private volatile GameSnapshot snapshot;
+
+  // measured rate, updated once per second
+  private volatile double ticksPerSecond;
 
   /**
    * Creates a new game loop.
    * 
-   * @param gameScreen
-   *          the game screen
    * @param gameLogic
    *          the game logic handler
    * @param inputHandler
    *          the user input handler
    */
-  public GameLoop(GameScreen gameScreen, GameLogic gameLogic, InputHandler inputHandler) {
-    this.gameScreen = gameScreen;
+  public GameLoop(GameLogic gameLogic, InputHandler inputHandler) {
     this.gameLogic = gameLogic;
     this.inputHandler = inputHandler;
   }
@@ -30,27 +51,185 @@ public class GameLoop implements Runnable {
    * thread.
    */
   public void run() {
+    long previousTime = System.nanoTime();
+    long accumulator = 0;
+
+    long rateStartTime = previousTime;
+    int ticks = 0;
+
     while (true) {
       // main game loop
-      try {
-        // sleep/wait for 1/60th of a second,
-        // for a resulting refresh rate of 60 frames per second (fps)
-        Thread.sleep(1000 / 60);
-      } catch (Exception e) {
-        e.printStackTrace();
+      long loopStartTime = System.nanoTime();
+      accumulator += loopStartTime - previousTime;
+      previousTime = loopStartTime;
+
+      // step the game once for every tick that has passed
+      int ticksThisLoop = 0;
+      while (accumulator >= TICK_NANOS && ticksThisLoop < GameSettings.MAX_CATCH_UP_TICKS) {
+        tick();
+        accumulator -= TICK_NANOS;
+        ticksThisLoop++;
+      }
+      // too far behind to catch up, drop the backlog
+      if (accumulator >= TICK_NANOS) {
+        accumulator %= TICK_NANOS;
       }
-      // check game or level ending conditions
-      gameLogic.checkConditions();
+      ticks += ticksThisLoop;
 
-      // update the game graphics
-      gameScreen.updateScreen();
+      // publish the new game state for the render loop
+      if (ticksThisLoop > 0) {
+        GameSnapshot next = gameLogic.createSnapshot(System.nanoTime());
+        next.setInputTime(inputHandler.takeInputTime());
+        snapshot = next;
+      }
+
+      // measure the tick rate
+      long elapsed = loopStartTime - rateStartTime;
+      if (elapsed >= NANOS_PER_SECOND) {
+        ticksPerSecond = (double) ticks * NANOS_PER_SECOND / elapsed;
+        rateStartTime = loopStartTime;
+        ticks = 0;
+      }
 
-      // handle input
-      inputHandler.handleInput(gameScreen);
+      // sleep/wait until the next tick is due
+      long sleepNanos = TICK_NANOS - accumulator - (System.nanoTime() - loopStartTime);
+      if (sleepNanos > 0) {
+        try {
+          Thread.sleep(sleepNanos / 1000000, (int) (sleepNanos % 1000000));
+        } catch (Exception e) {
+          e.printStackTrace();
+        }
+      }
+    }
+  }
 
-      // repaint the graphics unto screen
-      gameScreen.repaint();
+  /**
+   * Advances the game by one fixed time step. Called by the running thread, or
+   * directly to run the game as fast as possible without a display.
+   */
+  public void tick() {
+    // advance the game clock once for the whole tick
+    GameClock clock = gameLogic.getClock();
+    if (recorder != null && recorder.isKeyframeDue(clock.getTicks())) {
+      recorder.recordKeyframe(clock.getTicks(), this);
     }
+    clock.tick();
+    long currentTime = clock.getTime();
+
+    // take the key events that happened since the last tick
+    inputHandler.pollEvents();
+    if (recorder != null) {
+      recorder.record(inputHandler.getInputState());
+    }
+
+    step(currentTime);
+
+    // quick save or load, between this tick and the next
+    int request = inputHandler.takeStateRequest();
+    if (request == InputHandler.QUICK_SAVE) {
+      quickSave.save(this);
+    } else if (request == InputHandler.QUICK_LOAD && quickSave.isSaved()) {
+      // keep the keys the player holds now, not those held when saving
+      int heldKeys = inputHandler.getInputState() & ~InputHandler.NEW_GAME;
+      quickSave.restore(this);
+      inputHandler.setInputState(heldKeys);
+    }
+  }
+
+  /**
+   * Advances the game by one tick with recorded input instead of the key
+   * events. Called to replay a recorded game.
+   * 
+   * @param inputState
+   *          - the recorded input state of the tick
+   */
+  public void replayTick(int inputState) {
+    GameClock clock = gameLogic.getClock();
+    clock.tick();
+    inputHandler.setInputState(inputState);
+    step(clock.getTime());
+  }
+
+  /**
+   * Runs the game logic for a tick, once the clock and the input are set.
+   */
+  private void step(long currentTime) {
+    // remember where everything was before moving it
+    gameLogic.savePositions();
+
+    // check game or level ending conditions
+    gameLogic.checkConditions(currentTime);
+
+    // update the game
+    gameLogic.update(currentTime);
+
+    // handle input
+    inputHandler.handleInput(currentTime);
+
+    // let the other threads see the status as of this tick
+    gameLogic.getStatus().publish();
+  }
+
+  /**
+   * Writes the whole game state, between two ticks, to a buffer.
+   * 
+   * @param buffer
+   *          - the buffer to write
+   */
+  public void saveState(ByteBuffer buffer) {
+    gameLogic.saveState(buffer);
+    inputHandler.saveState(buffer);
+  }
+
+  /**
+   * Replaces the whole game state with one written by saveState().
+   * 
+   * @param buffer
+   *          - the buffer to read
+   */
+  public void restoreState(ByteBuffer buffer) {
+    gameLogic.restoreState(buffer);
+    inputHandler.restoreState(buffer);
+  }
+
+  /**
+   * Records the input of every tick from now on. Must be set before the first
+   * tick. Quick loading is disabled while recording.
+   * 
+   * @param recorder
+   *          - the recorder, or null to stop recording
+   */
+  public void setRecorder(InputRecorder recorder) {
+    this.recorder = recorder;
+    inputHandler.setQuickLoadEnabled(recorder == null);
+  }
+
+  /**
+   * Returns the number of game ticks run during the last second.
+   * 
+   * @return the measured tick rate
+   */
+  public double getTicksPerSecond() {
+    return ticksPerSecond;
+  }
+
+  /**
+   * Returns the number of key events dropped because the game loop did not
+   * take them in time.
+   * 
+   * @return the number of dropped key events
+   */
+  public long getDroppedInputEvents() {
+    return inputHandler.getDroppedEvents();
+  }
+
+  /**
+   * Returns the snapshot of the last simulation tick.
+   * 
+   * @return the latest snapshot, or null if no tick has run yet
+   */
+  public GameSnapshot getSnapshot() {
+    return snapshot;
   }
 
 }
@@ -1,64 +1,87 @@
 package rbadia.voidspace.main;
 
+import java.awt.AWTException;
+import java.awt.BorderLayout;
+import java.awt.BufferCapabilities;
+import java.awt.Canvas;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Font;
-import java.awt.FontMetrics;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.ImageCapabilities;
 import java.awt.Rectangle;
+import java.awt.Toolkit;
+import java.awt.image.BufferStrategy;
 import java.awt.image.BufferedImage;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
+import java.awt.image.VolatileImage;
 
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 
+import rbadia.voidspace.graphics.CachedText;
 import rbadia.voidspace.graphics.GraphicsManager;
-import rbadia.voidspace.model.Asteroid;
-import rbadia.voidspace.model.Bullet;
-import rbadia.voidspace.model.ChuckNorris;
-import rbadia.voidspace.model.EnemyBullet;
-import rbadia.voidspace.model.EnemyShip;
-import rbadia.voidspace.model.Ship;
-import rbadia.voidspace.sounds.SoundManager;
+import rbadia.voidspace.graphics.SpriteAtlas;
+import rbadia.voidspace.graphics.SpriteBatch;
+import rbadia.voidspace.graphics.Starfield;
+import rbadia.voidspace.model.RandomStream;
+import rbadia.voidspace.model.WorldBounds;
 
 /**
- * Main game screen. Handles all game graphics updates and some of the game
- * logic.
+ * Main game screen. Handles all game graphics updates.
+ *
+ * With active rendering on, the screen holds a canvas and the render thread
+ * draws each frame into the canvas' buffer strategy and flips it to the
+ * screen itself. Otherwise, or until the canvas can be drawn to, frames are
+ * drawn into a back buffer image that Swing paints on the next repaint(). The
+ * back buffers are volatile images, kept in video memory where possible.
+ *
+ * With dirty rectangles on, frames are drawn through Swing into a single
+ * image that is never cleared as a whole: only the regions drawn in the last
+ * frame are cleared, copying them from a background image with the stars,
+ * which stay still, and only the regions that changed are repainted.
  */
-public class GameScreen extends JPanel {
+public class GameScreen extends JPanel implements WorldBounds {
   private static final long serialVersionUID = 1L;
 
-  private BufferedImage backBuffer;
+  private VolatileImage backBuffer;
+  private VolatileImage frontBuffer;
   private Graphics2D g2d;
+  private final Object bufferLock = new Object();
 
-  private long lastShipTime;
+  private Canvas canvas;
+  private BufferStrategy bufferStrategy;
 
-  private Rectangle asteroidExplosion;
-  private Rectangle shipExplosion;
-  private Rectangle enemyShipExplosion;
+  private DirtyRegions dirtyRegions;
+  private BufferedImage background;
 
-  private JLabel shipsValueLabel;
-  private JLabel destroyedValueLabel;
-  private JLabel destroyedEnemyShipsValueLabel;
-  private JLabel levelValueLabel;
-  private JLabel pointsValueLabel;
-  private JLabel bulletsFiredValueLabel;
-  private JLabel bulletsRemainingValueLabel;
-  private JLabel hitMissRatioValueLabel;
-
-  private Random rand;
+  private final HudModel hud = new HudModel();
 
   private Font originalFont;
-  private Font bigFont;
-  private Font biggestFont;
+  // when the title or "Game Over" message started growing, as a snapshot's
+  // tick time, or 0; the biggest size is 0 until the message has grown as
+  // wide as the screen
+  private long growStartTime;
+  private int biggestSize;
+
+  // the messages, laid out once for each size they are drawn at
+  private CachedText titleText;
+  private CachedText titleFooterText;
+  private CachedText gameOverText;
+  private CachedText getReadyText;
 
-  private GameStatus status;
-  private SoundManager soundMan;
   private GraphicsManager graphicsMan;
-  private GameLogic gameLogic;
+  private SpriteBatch spriteBatch;
+  // the atlas region of each kind of sprite
+  private int[] spriteRegions;
+  private RandomStream starfieldRandom;
+  private Starfield starfield;
+  private GameLoop gameLoop;
+  private RenderLoop renderLoop;
+
+  private boolean wasGameStarting;
 
   /**
    * This method initializes
@@ -66,18 +89,11 @@ public class GameScreen extends JPanel {
    */
   public GameScreen() {
     super();
-    // initialize random number generator
-    rand = new Random();
-
     initialize();
 
     // init graphics manager
     graphicsMan = new GraphicsManager();
-
-    // init back buffer image
-    backBuffer = new BufferedImage(GameSettings.GAME_FRAME_X_SIZE, GameSettings.GAME_FRAME_Y_SIZE,
-        BufferedImage.TYPE_INT_RGB);
-    g2d = backBuffer.createGraphics();
+    initSprites();
   }
 
   /**
@@ -89,6 +105,21 @@ public class GameScreen extends JPanel {
     this.setPreferredSize(new Dimension(GameSettings.GAME_FRAME_X_SIZE,
         GameSettings.GAME_FRAME_Y_SIZE));
     this.setBackground(Color.BLACK);
+
+    // keep track of the regions drawn, or add the canvas for active rendering,
+    // where it is possible
+    if (GameSettings.DIRTY_RECTANGLES) {
+      dirtyRegions = new DirtyRegions(GameSettings.GAME_FRAME_X_SIZE,
+          GameSettings.GAME_FRAME_Y_SIZE);
+    } else if (GameSettings.ACTIVE_RENDERING && !GraphicsEnvironment.isHeadless()) {
+      canvas = new Canvas();
+      canvas.setBackground(Color.BLACK);
+      canvas.setIgnoreRepaint(true);
+      // keys go to the main frame
+      canvas.setFocusable(false);
+      this.setLayout(new BorderLayout());
+      this.add(canvas, BorderLayout.CENTER);
+    }
   }
 
   /**
@@ -97,857 +128,491 @@ public class GameScreen extends JPanel {
   @Override
   protected void paintComponent(Graphics g) {
     super.paintComponent(g);
-    // draw current backbuffer to the actual game screen
-    g.drawImage(backBuffer, 0, 0, this);
+    // draw the last finished frame to the actual game screen, unless its
+    // contents were lost; the next frame will replace it soon
+    synchronized (bufferLock) {
+      if (frontBuffer != null && !frontBuffer.contentsLost()) {
+        g.drawImage(frontBuffer, 0, 0, this);
+      }
+    }
   }
 
   /**
-   * Update the game screen's backbuffer image.
+   * Makes the frame just drawn into the back buffer the one painted on screen.
    */
-  public void updateScreen() {
-    Ship ship = gameLogic.getShip();
-    ArrayList<Asteroid> asteroids = gameLogic.getAsteroidList();
-    ArrayList<EnemyShip> enemyShips = gameLogic.getEnemyShipList();
-    ArrayList<ChuckNorris> chuckNorriss = gameLogic.getChuckNorrisList();
-    List<Bullet> bullets = gameLogic.getBullets();
-    List<EnemyBullet> enemyBullets = gameLogic.getEnemyBullets();
-
-    // always set gameLogic in GameStatus for gameLogic's asteroid list, etc.
-    status.setGameLogic(gameLogic);
-
-    // set orignal font - for later use
-    if (this.originalFont == null) {
-      this.originalFont = g2d.getFont();
-      this.bigFont = originalFont;
+  private void swapBuffers() {
+    synchronized (bufferLock) {
+      VolatileImage image = frontBuffer;
+      frontBuffer = backBuffer;
+      backBuffer = image;
     }
+  }
 
-    // erase screen
-    g2d.setPaint(Color.BLACK);
-    g2d.fillRect(0, 0, getSize().width, getSize().height);
-
-    // draw 50 random stars
-    drawStars(50);
-
-    // if the game is starting, draw "Get Ready" message
-    if (status.isGameStarting()) {
-      drawGetReady();
+  /**
+   * Draws a game snapshot into the back buffer image, and makes it the next
+   * image painted on screen. The image is created again if it no longer fits
+   * the screen, and the frame drawn again if the image lost its contents.
+   * 
+   * @param snapshot
+   *          - the snapshot of the last simulation tick
+   * @param alpha
+   *          - how far along the next tick the frame is
+   */
+  private void drawBackBuffer(GameSnapshot snapshot, float alpha) {
+    GraphicsConfiguration gc = getGraphicsConfiguration();
+    if (gc == null) {
+      // not on screen yet, so there is nothing to draw to
       return;
     }
-
-    // if the game is over, draw the "Game Over" message
-    if (status.isGameOver()) {
-      // draw the message
-      drawGameOver();
-
-      long currentTime = System.currentTimeMillis();
-
-      // draw the explosions until their time passes... for each asteroid
-      for (int i = 0; i < asteroids.size(); i++) {
-        Asteroid asteroid = asteroids.get(i);
-        if ((currentTime - asteroid.getLastAsteroidTime()) < GameSettings.NEW_ASTEROID_DELAY) {
-          graphicsMan.drawAsteroidExplosion(asteroidExplosion, g2d, this);
-        }
+    do {
+      if (backBuffer == null || backBuffer.validate(gc) == VolatileImage.IMAGE_INCOMPATIBLE) {
+        backBuffer = gc.createCompatibleVolatileImage(GameSettings.GAME_FRAME_X_SIZE,
+            GameSettings.GAME_FRAME_Y_SIZE);
       }
-
-      // draw the explosions until their time passes... for each enemy ship
-      for (int i = 0; i < enemyShips.size(); i++) {
-        EnemyShip enemyShip = enemyShips.get(i);
-        if ((currentTime - enemyShip.getLastEnemyShipTime()) < GameSettings.NEW_ENEMY_SHIP_DELAY) {
-          graphicsMan.drawEnemyShipExplosion(enemyShipExplosion, g2d, this);
-        }
+      g2d = backBuffer.createGraphics();
+      try {
+        drawFrame(snapshot, alpha);
+      } finally {
+        g2d.dispose();
       }
+    } while (backBuffer.contentsLost());
+    swapBuffers();
+  }
 
-      if ((currentTime - lastShipTime) < GameSettings.NEW_SHIP_DELAY) {
-        graphicsMan.drawShipExplosion(shipExplosion, g2d, this);
+  /**
+   * Returns the canvas' buffer strategy, creating it the first time the canvas
+   * can be drawn to. Asks for page flipping in video memory, and takes
+   * whatever the platform offers if that is not available.
+   * 
+   * @return the buffer strategy, or null to draw through Swing
+   */
+  private BufferStrategy getBufferStrategy() {
+    if (bufferStrategy == null && canvas != null && canvas.isDisplayable()) {
+      try {
+        canvas.createBufferStrategy(GameSettings.RENDER_BUFFERS, new BufferCapabilities(
+            new ImageCapabilities(true), new ImageCapabilities(true),
+            BufferCapabilities.FlipContents.UNDEFINED));
+      } catch (AWTException e) {
+        canvas.createBufferStrategy(GameSettings.RENDER_BUFFERS);
       }
-      return;
-    }
-
-    // the game has not started yet
-    if (!status.isGameStarted()) {
-      // draw game title screen
-      initialMessage();
-      return;
+      bufferStrategy = canvas.getBufferStrategy();
     }
-
-    // draw Asteroids
-    drawAsteroids(asteroids);
-
-    // draw Chuck Norris
-    drawChuckNorriss(chuckNorriss);
-
-    // drawEnemyShip
-    drawEnemyShip(enemyShips);
-
-    // draw bullets
-    drawBullets(bullets);
-
-    // draw enemyBullets
-    drawEnemyBullets(enemyBullets);
-
-    // draw ship
-    drawShip(ship);
-
-    // check bullet-asteroid collision
-    checkBulletAsteroidCollision(asteroids, bullets);
-
-    checkBulletChuckNorrisCollision(chuckNorriss, bullets, enemyBullets);
-
-    // check bullet-enemyShip collision
-    checkBulletEnemyShipCollision(enemyShips, bullets);
-
-    // check enemyBullet-ship collision
-    checkShipEnemyBulletCollision(ship, enemyBullets);
-
-    // check asteroid-ship collision
-    checkAsteroidsShipCollision(asteroids, ship);
-
-    // check chuck norris - ship collision
-    checkChuckNorrisShipCollision(chuckNorriss, ship);
-
-    // check ship-enemyShip collision
-    checkShipEnemyShipCollision(ship, enemyShips);
-
-    // check bullet collisions
-    checkBulletEnemyBulletCollision(bullets, enemyBullets);
-
-    // update asteroids destroyed label
-    destroyedValueLabel.setText(Long.toString(status.getAsteroidsDestroyed()));
-
-    // update enemyShip destroyed label
-    destroyedEnemyShipsValueLabel.setText(Long.toString(status.getEnemyShipsDestroyed()));
-
-    // update ships left label
-    shipsValueLabel.setText(Integer.toString(status.getShipsLeft()));
-
-    // update level label
-    levelValueLabel.setText(Integer.toString(status.getLevel()));
-
-    // update points label
-    pointsValueLabel.setText(Long.toString(status.getPoints()));
-
-    // update bullets fired label
-    bulletsFiredValueLabel.setText(Long.toString(status.getBulletsFired()));
-
-    // update bullets remaining label only if bullets are limited
-    if (GameSettings.BULLETS_ARE_LIMITED)
-      bulletsRemainingValueLabel.setText(Long.toString(status.getBulletsRemaining()));
-
-    // update hit-miss ratio
-    if (status.getBulletsFired() > 0) {
-      hitMissRatioValueLabel.setText(String.format("%.2f", status.getHitMissRatio()));
-    } else {
-      hitMissRatioValueLabel.setText(" --");
-    }
-
+    return bufferStrategy;
   }
 
   /**
-   * Draws the asteroids to the screen
+   * Draws a game snapshot over the last one, clearing and repainting only the
+   * regions drawn in either of them. Everything is drawn again if the image
+   * is new or lost its contents.
    * 
-   * @param asteroids
-   *          - the array list of asteroids to be drawn
-   */
-  private void drawAsteroids(ArrayList<Asteroid> asteroids) {
-    // draw asteroid
-    for (int i = 0; i < asteroids.size(); i++) {
-      Asteroid asteroid = asteroids.get(i);
-      if (!asteroid.isNew()) {
-        // draw the asteroid until it reaches the bottom of the screen
-
-        int horizontalTranslation;
-        int verticalTranslation;
-        if (asteroid.getY() + asteroid.getSpeed() < this.getHeight()) {
-
-          // change horizontal displacement speed
-          if (status.getLevel() < GameSettings.LEVEL_TO_MOVE_ASTEROIDS) {
-            horizontalTranslation = 0;
-          } else if (GameSettings.ASTEROID_SINUSOIDAL_MOVEMENT) {
-            long currentTime = System.currentTimeMillis();
-            double cs = Math.cos(currentTime / 1000.0 + asteroid.getRandomMovementMultiplier());
-            horizontalTranslation = (int) (3 * cs + 2 * cs * cs * cs);
-          }
-          // else if(GameSettings.ASTEROID_NELIANS_TECATEX_MOVEMENT) {
-          // horizontalTranslation = asteroid.getHorizontalSpeed() *
-          // rand.nextInt();
-          // }
-          else if (asteroid.getHorizontalLocation() < (this.getWidth() / 2)) {
-            if (GameSettings.ASTEROID_NELIANS_TECATEX_MOVEMENT)
-              horizontalTranslation = asteroid.getHorizontalSpeed()
-                  * (rand.nextInt(asteroid.getDefaultSpeed()) - 1) + 1;
-            else
-              horizontalTranslation = asteroid.getHorizontalSpeed();
-          } else {
-            if (GameSettings.ASTEROID_NELIANS_TECATEX_MOVEMENT)
-              horizontalTranslation = -asteroid.getHorizontalSpeed()
-                  * (rand.nextInt(asteroid.getDefaultSpeed()) - 1) + 1;
-            else
-              horizontalTranslation = -asteroid.getHorizontalSpeed();
-          }
-
-          // change vertical displacement speed
-          if (status.getLevel() < GameSettings.LEVEL_TO_MOVE_ASTEROIDS_2X) {
-            verticalTranslation = asteroid.getSpeed();
-          } else if (status.getLevel() < GameSettings.LEVEL_TO_MOVE_ASTEROIDS_3X) {
-            verticalTranslation = (int) (asteroid.getSpeed() * GameSettings.SPEED_TO_MOVE_ASTEROIDS_2X);
-          } else {
-            verticalTranslation = (int) (asteroid.getSpeed() * GameSettings.SPEED_TO_MOVE_ASTEROIDS_3X);
-          }
-
-          // for sinosoidal path
-          // double cs = Math.cos(currentTime / 1000.0);
-          /* (int) (3*cs + 2*cs*cs*cs) */
-          asteroid.translate(horizontalTranslation, verticalTranslation);
-          graphicsMan.drawAsteroid(asteroid, g2d, this);
-        } else {
-          asteroid.setLocation(rand.nextInt(getWidth() - asteroid.width), 0);
-          asteroid.setHorizontalSpeed(rand.nextInt(asteroid.getSpeed()));
+   * @param snapshot
+   *          - the snapshot of the last simulation tick
+   * @param alpha
+   *          - how far along the next tick the frame is
+   */
+  private void drawDirtyRegions(GameSnapshot snapshot, float alpha) {
+    GraphicsConfiguration gc = getGraphicsConfiguration();
+    if (gc == null) {
+      // not on screen yet, so there is nothing to draw to
+      return;
+    }
+    if (background == null) {
+      background = createBackground(gc);
+    }
 
-        }
-      } else {
-        long currentTime = System.currentTimeMillis();
-        // check the individual last asteroid's time
-        if ((currentTime - asteroid.getLastAsteroidTime()) > GameSettings.NEW_ASTEROID_DELAY) {
-          // draw a new asteroid
-          asteroid.setLastAsteroidTime(currentTime);
-          asteroid.isNew(false);
-          asteroid.setLocation(rand.nextInt(getWidth() - asteroid.width), 0);
+    boolean drawAll;
+    synchronized (bufferLock) {
+      int validation = frontBuffer == null ? VolatileImage.IMAGE_INCOMPATIBLE : frontBuffer
+          .validate(gc);
+      if (validation == VolatileImage.IMAGE_INCOMPATIBLE) {
+        frontBuffer = gc.createCompatibleVolatileImage(GameSettings.GAME_FRAME_X_SIZE,
+            GameSettings.GAME_FRAME_Y_SIZE);
+      }
+      drawAll = validation != VolatileImage.IMAGE_OK;
+
+      // the frame is drawn straight into the image Swing paints, so Swing
+      // waits for it to be finished
+      g2d = frontBuffer.createGraphics();
+      try {
+        if (drawAll) {
+          g2d.drawImage(background, 0, 0, null);
         } else {
-          // draw explosion (keep drawing this explosion...)
-          graphicsMan.drawAsteroidExplosion(asteroidExplosion, g2d, this);
+          dirtyRegions.restore(g2d, background);
         }
+        drawFrame(snapshot, alpha);
+      } finally {
+        g2d.dispose();
       }
     }
 
+    if (drawAll) {
+      repaint();
+    } else {
+      dirtyRegions.repaint(this);
+    }
+    dirtyRegions.nextFrame();
   }
 
   /**
-   * This class draws the chuck norris's on the screen
+   * Creates the background the dirty regions are cleared with: the black
+   * screen and its stars.
    * 
-   * @param chuckNorriss
-   *          - the list of chuck norriss to draw
-   */
-  private void drawChuckNorriss(ArrayList<ChuckNorris> chuckNorriss) {
-    // draw chuck norris
-    for (int i = 0; i < chuckNorriss.size(); i++) {
-      ChuckNorris chuckNorris = chuckNorriss.get(i);
-      if (!chuckNorris.isNew()) {
-        // draw the chuck norris until it reaches the bottom of the screen
-
-        int horizontalTranslation;
-        int verticalTranslation;
-        if (chuckNorris.getY() + chuckNorris.getSpeed() < this.getHeight()) {
-
-          // change horizontal displacement speed
-          if (status.getLevel() < GameSettings.LEVEL_TO_MOVE_ASTEROIDS) {
-            horizontalTranslation = 0;
-          } else if (GameSettings.ASTEROID_SINUSOIDAL_MOVEMENT) {
-            long currentTime = System.currentTimeMillis();
-            double cs = Math.cos(currentTime / 1000.0 + chuckNorris.getRandomMovementMultiplier());
-            horizontalTranslation = (int) (3 * cs + 2 * cs * cs * cs);
-          }
-          // else if(GameSettings.ASTEROID_NELIANS_TECATEX_MOVEMENT) {
-          // horizontalTranslation = asteroid.getHorizontalSpeed() *
-          // rand.nextInt();
-          // }
-          else if (chuckNorris.getHorizontalLocation() < (this.getWidth() / 2)) {
-            if (GameSettings.ASTEROID_NELIANS_TECATEX_MOVEMENT)
-              horizontalTranslation = chuckNorris.getHorizontalSpeed()
-                  * (rand.nextInt(chuckNorris.getDefaultSpeed()) - 1) + 1;
-            else
-              horizontalTranslation = chuckNorris.getHorizontalSpeed();
-          } else {
-            if (GameSettings.ASTEROID_NELIANS_TECATEX_MOVEMENT)
-              horizontalTranslation = -chuckNorris.getHorizontalSpeed()
-                  * (rand.nextInt(chuckNorris.getDefaultSpeed()) - 1) + 1;
-            else
-              horizontalTranslation = -chuckNorris.getHorizontalSpeed();
-          }
-
-          // change vertical displacement speed
-          if (status.getLevel() < GameSettings.LEVEL_TO_MOVE_ASTEROIDS_2X) {
-            verticalTranslation = chuckNorris.getSpeed();
-          } else if (status.getLevel() < GameSettings.LEVEL_TO_MOVE_ASTEROIDS_3X) {
-            verticalTranslation = (int) (chuckNorris.getSpeed() * GameSettings.SPEED_TO_MOVE_ASTEROIDS_2X);
-          } else {
-            verticalTranslation = (int) (chuckNorris.getSpeed() * GameSettings.SPEED_TO_MOVE_ASTEROIDS_3X);
-          }
-
-          // for sinosoidal path
-          // double cs = Math.cos(currentTime / 1000.0);
-          /* (int) (3*cs + 2*cs*cs*cs) */
-          chuckNorris.translate(horizontalTranslation, verticalTranslation);
-          graphicsMan.drawChuckNorris(chuckNorris, g2d, this);
-        } else {
-          chuckNorris.setLocation(rand.nextInt(getWidth() - chuckNorris.width), 0);
-          chuckNorris.setHorizontalSpeed(rand.nextInt(chuckNorris.getSpeed()));
-
-        }
-      } else {
-        long currentTime = System.currentTimeMillis();
-        // check the individual last asteroid's time
-        if ((currentTime - chuckNorris.getLastAsteroidTime()) > GameSettings.NEW_ASTEROID_DELAY) {
-          // draw a new asteroid
-          chuckNorris.setLastAsteroidTime(currentTime);
-          chuckNorris.isNew(false);
-          chuckNorris.setLocation(rand.nextInt(getWidth() - chuckNorris.width), 0);
-        } else {
-          // draw explosion (keep drawing this explosion...)
-          graphicsMan.drawAsteroidExplosion(asteroidExplosion, g2d, this);
-        }
-      }
+   * @param gc
+   *          - the graphics configuration of the screen
+   * @return the background image
+   */
+  private BufferedImage createBackground(GraphicsConfiguration gc) {
+    BufferedImage image = gc.createCompatibleImage(GameSettings.GAME_FRAME_X_SIZE,
+        GameSettings.GAME_FRAME_Y_SIZE);
+    g2d = image.createGraphics();
+    try {
+      getStarfield().draw(g2d, 0);
+    } finally {
+      g2d.dispose();
     }
+    return image;
   }
 
   /**
-   * Draws the enemy ships to the screen
+   * Draw a game snapshot and show it on screen. Called by the render thread.
+   * With active rendering, the frame is drawn into the canvas' next buffer and
+   * shown right away; otherwise it is drawn into the back buffer image, to be
+   * painted on the next repaint().
    * 
-   * @param enemyShips
-   *          - the array list of enemy ships to be drawn
-   */
-  private void drawEnemyShip(ArrayList<EnemyShip> enemyShips) {
-    // draw enemyShip
-    for (int i = 0; i < enemyShips.size(); i++) {
-      EnemyShip enemyShip = enemyShips.get(i);
-      if (!enemyShip.isNew()) {
-        // draw the enemyShip until it reaches the bottom of the screen
-
-        int horizontalTranslation;
-        int verticalTranslation;
-        if (enemyShip.getY() + enemyShip.getSpeed() < this.getHeight()) {
-
-          long currentTime = System.currentTimeMillis();
-          double cs = Math.cos(currentTime / 1000.0 + enemyShip.getRandomMovementMultiplier());
-
-          if (status.getLevel() < GameSettings.LEVEL_TO_MOVE_ENEMY_SHIP_2X) {
-            verticalTranslation = enemyShip.getSpeed();
-            horizontalTranslation = (int) (3 * cs + 2 * cs * cs * cs);
-          } else if (status.getLevel() < GameSettings.LEVEL_TO_MOVE_ENEMY_SHIP_3X) {
-            verticalTranslation = (int) (enemyShip.getSpeed() * GameSettings.SPEED_TO_MOVE_ENEMY_SHIP_2X);
-            horizontalTranslation = (int) (3 * cs + 2 * cs * cs * cs);
-          } else {
-            verticalTranslation = (int) (enemyShip.getSpeed() * GameSettings.SPEED_TO_MOVE_ENEMY_SHIP_3X);
-            horizontalTranslation = (int) (5 * cs + 2 * cs * cs * cs);
-          }
-
-          enemyShip.translate(horizontalTranslation, verticalTranslation);
-          graphicsMan.drawEnemyShip(enemyShip, g2d, this);
-
-          // fire enemy bullets
-          if ((currentTime - enemyShip.getEnemyBulletTime()) > enemyShip.getCooldown()) {
-            enemyShip.setEnemyBulletTime(currentTime);
-            gameLogic.fireEnemyBullet(i);
-            enemyShip.changeCooldown();
-          }
+   * @param snapshot
+   *          - the snapshot of the last simulation tick
+   * @param alpha
+   *          - how far along the next tick the frame is, from 0 to 1. Used to
+   *          interpolate the sprites between their last two positions.
+   */
+  public void drawScreen(GameSnapshot snapshot, float alpha) {
+    if (dirtyRegions != null) {
+      drawDirtyRegions(snapshot, alpha);
+      return;
+    }
 
-        } else {
-          enemyShip.setLocation(rand.nextInt(getWidth() - enemyShip.width), 0);
-          enemyShip.setHorizontalSpeed(rand.nextInt(enemyShip.getSpeed()));
+    BufferStrategy strategy = getBufferStrategy();
+    if (strategy == null) {
+      drawBackBuffer(snapshot, alpha);
+      repaint();
+      return;
+    }
 
+    do {
+      // draw again if the buffer was lost while drawing into it
+      do {
+        g2d = (Graphics2D) strategy.getDrawGraphics();
+        try {
+          drawFrame(snapshot, alpha);
+        } finally {
+          g2d.dispose();
         }
-      } else {
-        long currentTime = System.currentTimeMillis();
-        if ((currentTime - enemyShip.getLastEnemyShipTime()) > GameSettings.NEW_ENEMY_SHIP_DELAY) {
-          // draw a new enemy ship (plus fired bullet)
-          enemyShip.setLastEnemyShipTime(currentTime);
-          enemyShip.isNew(false);
-          enemyShip.setLocation(rand.nextInt(getWidth() - enemyShip.width), 0);
-          gameLogic.fireEnemyBullet(i);
-        } else {
-          // draw explosion
-          graphicsMan.drawEnemyShipExplosion(enemyShipExplosion, g2d, this);
-        }
-      }
-    }
+      } while (strategy.contentsRestored());
+      strategy.show();
+    } while (strategy.contentsLost());
+
+    // don't let the window system queue up frames
+    Toolkit.getDefaultToolkit().sync();
   }
 
   /**
-   * Draws the palyer's bullets to the screen
+   * Draws a game snapshot with the current graphics canvas.
    * 
-   * @param bullets
-   *          - the list of bullets to be drawn
+   * @param snapshot
+   *          - the snapshot of the last simulation tick
+   * @param alpha
+   *          - how far along the next tick the frame is
    */
-  private void drawBullets(List<Bullet> bullets) {
-    for (int i = 0; i < bullets.size(); i++) {
-      Bullet bullet = bullets.get(i);
-      graphicsMan.drawBullet(bullet, g2d, this);
+  private void drawFrame(GameSnapshot snapshot, float alpha) {
+    // set orignal font - for later use
+    if (this.originalFont == null) {
+      this.originalFont = g2d.getFont();
+      initTexts();
+    }
 
-      boolean remove = gameLogic.moveBullet(bullet);
-      if (remove) {
-        bullets.remove(i);
-        i--;
-      }
+    if (dirtyRegions == null) {
+      // erase screen with the scrolling stars
+      getStarfield().draw(g2d, System.nanoTime());
     }
-  }
 
-  /**
-   * Draws the enemy ship's bullets to the screen
-   * 
-   * @param enemyBullets
-   *          - the list of enemy bullets to be drawn
-   */
-  private void drawEnemyBullets(List<EnemyBullet> enemyBullets) {
-    for (int i = 0; i < enemyBullets.size(); i++) {
-      EnemyBullet enemyBullet = enemyBullets.get(i);
-      graphicsMan.drawEnemyBullet(enemyBullet, g2d, this);
+    // update the status labels, if anything changed
+    hud.update(snapshot);
 
-      boolean remove = gameLogic.moveEnemyBullet(enemyBullet);
-      if (remove) {
-        enemyBullets.remove(i);
-        i--;
+    if (snapshot.isGameStarting()) {
+      // if the game is starting, draw "Get Ready" message
+      if (!wasGameStarting) {
+        // the title grows again on the next title screen
+        growStartTime = 0;
+        biggestSize = 0;
       }
+      drawGetReady();
+    } else if (snapshot.isGameOver()) {
+      // if the game is over, draw the "Game Over" message and explosions
+      drawGameOver(snapshot.getTickTime());
+      drawSprites(snapshot, alpha);
+    } else if (!snapshot.isGameStarted()) {
+      // the game has not started yet, draw game title screen
+      initialMessage(snapshot.getTickTime());
+    } else {
+      drawSprites(snapshot, alpha);
     }
-  }
+    wasGameStarting = snapshot.isGameStarting();
 
-  /**
-   * Draws the player's ship to the screen
-   * 
-   * @param ship
-   *          - the ship to be drawn
-   */
-  private void drawShip(Ship ship) {
-    // draw ship
-    if (!status.isNewShip()) {
-      // draw it in its current location
-      graphicsMan.drawShip(ship, g2d, this);
-    } else {
-      // draw a new one
-      long currentTime = System.currentTimeMillis();
-      if ((currentTime - lastShipTime) > GameSettings.NEW_SHIP_DELAY) {
-        lastShipTime = currentTime;
-        status.setNewShip(false);
-        ship = gameLogic.newShip(this);
-      } else {
-        // draw explosion
-        graphicsMan.drawShipExplosion(shipExplosion, g2d, this);
-      }
+    // draw measured tick and frame rates
+    if (GameSettings.SHOW_FRAME_RATES && gameLoop != null && renderLoop != null) {
+      drawFrameRates();
     }
   }
 
   /**
-   * Checks the collisions between the enemy ships and the player's bullets
+   * Draws every sprite in a snapshot, in one batch from the atlas.
    * 
-   * @param enemyShips
-   *          - the list of enemy ships on the screen
-   * @param bullets
-   *          - the list of the player's bullets on the screen
-   */
-  private void checkBulletEnemyShipCollision(ArrayList<EnemyShip> enemyShips, List<Bullet> bullets) {
-    for (int j = 0; j < enemyShips.size(); j++) {
-      EnemyShip enemyShip = enemyShips.get(j);
-      for (int i = 0; i < bullets.size(); i++) {
-        Bullet bullet = bullets.get(i);
-        if (enemyShip.intersects(bullet)) {
-          // increase asteroids destroyed count
-          status.setEnemyShipsDestroyed(status.getEnemyShipsDestroyed() + 1);
-
-          // "remove" enemyShip
-          enemyShipExplosion = new Rectangle(enemyShip.x, enemyShip.y, enemyShip.width,
-              enemyShip.height);
-          enemyShip.setLocation(-enemyShip.width, -enemyShip.height);
-          enemyShip.isNew(true);
-          enemyShip.setLastEnemyShipTime(System.currentTimeMillis());
-
-          // play asteroid explosion sound
-          soundMan.playEnemyShipExplosionSound();
-
-          // remove bullet
-          bullets.remove(i);
-          break;
-        }
+   * @param snapshot
+   *          - the snapshot to draw
+   * @param alpha
+   *          - how far along the next tick the frame is
+   */
+  private void drawSprites(GameSnapshot snapshot, float alpha) {
+    SpriteAtlas atlas = graphicsMan.getAtlas();
+    for (int i = 0; i < snapshot.getSpriteCount(); i++) {
+      int region = spriteRegions[snapshot.getKind(i)];
+      int x = snapshot.getX(i, alpha);
+      int y = snapshot.getY(i, alpha);
+      spriteBatch.add(region, x, y);
+      if (dirtyRegions != null) {
+        dirtyRegions.add(x, y, atlas.getRegionWidth(region), atlas.getRegionHeight(region));
       }
     }
+    spriteBatch.flush(g2d);
   }
 
   /**
-   * Check collisions between chuck norris and bullets
-   * 
-   * @param chuckNorriss
-   *          - list of all chuck norris in screen
-   * @param bullets
-   *          - list of player's bullets
+   * Finds the atlas region of each kind of sprite, and sets up the batch they
+   * are drawn with.
    */
-  private void checkBulletChuckNorrisCollision(ArrayList<ChuckNorris> chuckNorriss,
-      List<Bullet> bullets, List<EnemyBullet> enemyBullets) {
-    for (int j = 0; j < chuckNorriss.size(); j++) {
-      ChuckNorris chuckNorris = chuckNorriss.get(j);
-      for (int i = 0; i < bullets.size(); i++) {
-        Bullet bullet = bullets.get(i);
-        if (chuckNorris.intersects(bullet)) {
-          // remove bullet
-          bullets.remove(i);
-          enemyBullets.add(new EnemyBullet(chuckNorris));
-
-          // sound
-          soundMan.playChuckNorrisSound();
-          break;
-        }
-      }
-    }
+  private void initSprites() {
+    SpriteAtlas atlas = graphicsMan.getAtlas();
+    spriteRegions = new int[GameSnapshot.ENEMY_SHIP_EXPLOSION + 1];
+    spriteRegions[GameSnapshot.SHIP] = atlas.getRegion(GraphicsManager.SHIP);
+    spriteRegions[GameSnapshot.BULLET] = atlas.getRegion(GraphicsManager.BULLET);
+    spriteRegions[GameSnapshot.ASTEROID] = atlas.getRegion(GraphicsManager.ASTEROID);
+    spriteRegions[GameSnapshot.CHUCK_NORRIS] = atlas.getRegion(GraphicsManager.CHUCK_NORRIS);
+    spriteRegions[GameSnapshot.ENEMY_SHIP] = atlas.getRegion(GraphicsManager.ENEMY_SHIP);
+    spriteRegions[GameSnapshot.ENEMY_BULLET] = atlas.getRegion(GraphicsManager.ENEMY_BULLET);
+    spriteRegions[GameSnapshot.SHIP_EXPLOSION] = atlas.getRegion(GraphicsManager.SHIP_EXPLOSION);
+    spriteRegions[GameSnapshot.ASTEROID_EXPLOSION] = atlas
+        .getRegion(GraphicsManager.ASTEROID_EXPLOSION);
+    spriteRegions[GameSnapshot.ENEMY_SHIP_EXPLOSION] = atlas
+        .getRegion(GraphicsManager.ENEMY_SHIP_EXPLOSION);
+    spriteBatch = new SpriteBatch(atlas);
   }
 
   /**
-   * Check collisions between the player's bullets and the enemy's bullets.
-   * 
-   * @param bullets
-   *          - list of the player's bullets
-   * @param enemyBullets
-   *          - list of the enemy's bullets
+   * Lays out the title, "Get Ready!" and "Game Over" messages.
    */
-  private void checkBulletEnemyBulletCollision(List<Bullet> bullets, List<EnemyBullet> enemyBullets) {
-    for (int j = 0; j < enemyBullets.size(); j++) {
-      EnemyBullet enemyBullet = enemyBullets.get(j);
-      for (int i = 0; i < bullets.size(); i++) {
-        Bullet bullet = bullets.get(i);
-        if (enemyBullet.intersects(bullet)) {
-          // remove bullet
-          bullets.remove(i);
-          enemyBullets.remove(j);
-          break;
-        }
-      }
-    }
+  private void initTexts() {
+    titleText = new CachedText(originalFont.deriveFont(Font.ITALIC), Color.YELLOW, 0,
+        "Void Space");
+    titleFooterText = new CachedText(originalFont, Color.WHITE, 16,
+        "Press <Space> to Start a New Game.",
+        "Press <Esc> to Exit the Game.",
+        "By: Team Machete",
+        "Samuel Rodriguez & Nelian Colon");
+    gameOverText = new CachedText(originalFont.deriveFont(Font.BOLD), Color.WHITE, 0,
+        "GAME OVER");
+    getReadyText = new CachedText(originalFont, Color.WHITE, 0, "Get Ready!");
   }
 
   /**
-   * Checks the collisions between the player's ship and the enemy's bullets
+   * Grows a message's font size by one each simulation tick, until the
+   * message would be wider than the screen. The size follows the snapshots'
+   * tick time, so the message grows at the same speed whatever the frame
+   * rate.
    * 
-   * @param ship
-   *          - the player's ship on the screen
-   * @param enemyBullets
-   *          - the list of enemy bullets on the screen
-   */
-  private void checkShipEnemyBulletCollision(Ship ship, List<EnemyBullet> enemyBullets) {
-    // check enemyBullet-ship collision
-    for (int i = 0; i < enemyBullets.size(); i++) {
-      EnemyBullet enemyBullet = enemyBullets.get(i);
-      if (ship.intersects(enemyBullet)) {
-        // decrease number of ships left
-        status.setShipsLeft(status.getShipsLeft() - 1);
-
-        // "remove" ship
-        shipExplosion = new Rectangle(ship.x, ship.y, ship.width, ship.height);
-        ship.setLocation(this.getWidth() + ship.width, -ship.height);
-        status.setNewShip(true);
-        lastShipTime = System.currentTimeMillis();
-
-        // play ship explosion sound
-        soundMan.playShipExplosionSound();
-
-        // remove bullet
-        enemyBullets.remove(i);
-        break;
-      }
+   * @param text
+   *          - the growing message
+   * @param tickTime
+   *          - the tick time of the snapshot being drawn
+   * @return the size to draw the message at this frame
+   */
+  private int growFont(CachedText text, long tickTime) {
+    if (biggestSize != 0) {
+      return biggestSize;
     }
+    if (growStartTime == 0) {
+      growStartTime = tickTime;
+    }
+    int ticks = (int) ((tickTime - growStartTime) / GameLoop.TICK_NANOS);
+    int size = originalFont.getSize() + 1 + ticks;
+    if (text.getWidth(g2d, size) > this.getWidth() - 10) {
+      // shrink back to the last size that fit
+      do {
+        size--;
+      } while (size > originalFont.getSize() && text.getWidth(g2d, size) > this.getWidth() - 10);
+      biggestSize = size;
+    }
+    return size;
   }
 
   /**
-   * Checks collisions between the player's ship and the enemy's ships
+   * Draws the "Game Over" message.
    * 
-   * @param ship
-   *          - the player's ship on the screen
-   * @param enemyShips
-   *          - the list of enemy ships on the screen
+   * @param tickTime
+   *          - the tick time of the snapshot being drawn
    */
-  private void checkShipEnemyShipCollision(Ship ship, ArrayList<EnemyShip> enemyShips) {
-    // check ship-enemyShip collision
-    for (int i = 0; i < enemyShips.size(); i++) {
-      EnemyShip enemyShip = enemyShips.get(i);
-      if (enemyShip.intersects(ship)) {
-        // decrease number of ships left
-        status.setShipsLeft(status.getShipsLeft() - 1);
-
-        status.setEnemyShipsDestroyed(status.getEnemyShipsDestroyed() + 1);
-
-        // "remove" enemyShip
-        enemyShipExplosion = new Rectangle(enemyShip.x, enemyShip.y, enemyShip.width,
-            enemyShip.height);
-        enemyShip.setLocation(-enemyShip.width, -enemyShip.height);
-        enemyShip.isNew(true);
-        enemyShip.setLastEnemyShipTime(System.currentTimeMillis());
-
-        // "remove" ship
-        shipExplosion = new Rectangle(ship.x, ship.y, ship.width, ship.height);
-        ship.setLocation(this.getWidth() + ship.width, -ship.height);
-        status.setNewShip(true);
-        lastShipTime = System.currentTimeMillis();
-
-        // play ship explosion sound
-        soundMan.playShipExplosionSound();
-        // play asteroid explosion sound
-        soundMan.playEnemyShipExplosionSound();
-      }
-    }
+  private void drawGameOver(long tickTime) {
+    int size = growFont(gameOverText, tickTime);
+    int ascent = gameOverText.getAscent(g2d, size);
+    drawText(gameOverText, size, this.getWidth() / 2, (this.getHeight() + ascent) / 2);
   }
 
   /**
-   * Checks collisions between the player's bullets and the asteroids
-   * 
-   * @param asteroids
-   *          - the list of asteroids on the screen
-   * @param bullets
-   *          - the list of the player's bullets on the screen
+   * Draws the initial "Get Ready!" message.
    */
-  private void checkBulletAsteroidCollision(ArrayList<Asteroid> asteroids, List<Bullet> bullets) {
-    // check bullet-asteroid collisions for each asteroid
-    for (int j = 0; j < asteroids.size(); j++) {
-      Asteroid asteroid = asteroids.get(j);
-      for (int i = 0; i < bullets.size(); i++) {
-        Bullet bullet = bullets.get(i);
-        if (asteroid.intersects(bullet)) {
-          // increase asteroids destroyed count
-          status.setAsteroidsDestroyed(status.getAsteroidsDestroyed() + 1);
-
-          // "remove" asteroid
-          asteroidExplosion = new Rectangle(asteroid.x, asteroid.y, asteroid.width, asteroid.height);
-          asteroid.setLocation(-asteroid.width, -asteroid.height);
-          asteroid.isNew(true);
-          asteroid.setLastAsteroidTime(System.currentTimeMillis());
-
-          // play asteroid explosion sound
-          soundMan.playAsteroidExplosionSound();
-
-          // remove bullet
-          bullets.remove(i);
-          break;
-        }
-      }
-    }
+  private void drawGetReady() {
+    int size = originalFont.getSize() + 1;
+    int ascent = getReadyText.getAscent(g2d, size);
+    drawText(getReadyText, size, this.getWidth() / 2, (this.getHeight() + ascent) / 2);
   }
 
   /**
-   * Checks the collisions between the asteroids and the player's ship
+   * Returns the starfield, drawing its layers the first time it is needed.
    * 
-   * @param asteroids
-   *          - the list of asteroids on the screen
-   * @param ship
-   *          - the player's ship on the screen
+   * @return the starfield
    */
-  private void checkAsteroidsShipCollision(ArrayList<Asteroid> asteroids, Ship ship) {
-    // check ship-asteroid collisions for each asteroid
-    for (int i = 0; i < asteroids.size(); i++) {
-      Asteroid asteroid = asteroids.get(i);
-      if (asteroid.intersects(ship)) {
-        // decrease number of ships left
-        status.setShipsLeft(status.getShipsLeft() - 1);
-
-        status.setAsteroidsDestroyed(status.getAsteroidsDestroyed() + 1);
-
-        // "remove" asteroid
-        asteroidExplosion = new Rectangle(asteroid.x, asteroid.y, asteroid.width, asteroid.height);
-        asteroid.setLocation(-asteroid.width, -asteroid.height);
-        asteroid.isNew(true);
-        asteroid.setLastAsteroidTime(System.currentTimeMillis());
-
-        // "remove" ship
-        shipExplosion = new Rectangle(ship.x, ship.y, ship.width, ship.height);
-        ship.setLocation(this.getWidth() + ship.width, -ship.height);
-        status.setNewShip(true);
-        lastShipTime = System.currentTimeMillis();
-
-        // play ship explosion sound
-        soundMan.playShipExplosionSound();
-        // play asteroid explosion sound
-        soundMan.playAsteroidExplosionSound();
-      }
+  private Starfield getStarfield() {
+    if (starfield == null) {
+      starfield = new Starfield(GameSettings.GAME_FRAME_X_SIZE, GameSettings.GAME_FRAME_Y_SIZE,
+          GameSettings.STARS, GameSettings.STAR_LAYERS, starfieldRandom,
+          getGraphicsConfiguration());
     }
+    return starfield;
   }
 
   /**
-   * Check collisions between chuck norris and the player's ship
+   * Draws a string with the current font and paint, adding the pixels it
+   * covers to the dirty regions.
    * 
-   * @param chuckNorriss
-   *          - the chuck norris list
-   * @param ship
-   *          - the player's ship
-   */
-  private void checkChuckNorrisShipCollision(ArrayList<ChuckNorris> chuckNorriss, Ship ship) {
-    // check ship-asteroid collisions for each asteroid
-    for (int i = 0; i < chuckNorriss.size(); i++) {
-      ChuckNorris chuckNorris = chuckNorriss.get(i);
-      if (chuckNorris.intersects(ship)) {
-        // decrease number of ships left
-        status.setShipsLeft(status.getShipsLeft() - 1);
-
-        // "remove" ship
-        shipExplosion = new Rectangle(ship.x, ship.y, ship.width, ship.height);
-        ship.setLocation(this.getWidth() + ship.width, -ship.height);
-        status.setNewShip(true);
-        lastShipTime = System.currentTimeMillis();
-
-        // play chuck norris explosion sound
-        soundMan.playChuckNorrisExplosionSound();
-      }
+   * @param str
+   *          - the string to draw
+   * @param x
+   *          - the x coordinate of the string's baseline
+   * @param y
+   *          - the y coordinate of the string's baseline
+   */
+  private void drawString(String str, int x, int y) {
+    g2d.drawString(str, x, y);
+    if (dirtyRegions != null) {
+      Rectangle bounds = g2d.getFont().createGlyphVector(g2d.getFontRenderContext(), str)
+          .getPixelBounds(g2d.getFontRenderContext(), x, y);
+      // leave room for antialiasing
+      dirtyRegions.add(bounds.x - 1, bounds.y - 1, bounds.width + 2, bounds.height + 2);
     }
   }
 
   /**
-   * Draws the "Game Over" message.
-   */
-  private void drawGameOver() {
-    String gameOverStr = "GAME OVER";
-    Font currentFont = biggestFont == null ? bigFont : biggestFont;
-    float fontSize = currentFont.getSize2D();
-    bigFont = currentFont.deriveFont(fontSize + 1).deriveFont(Font.BOLD);
-    FontMetrics fm = g2d.getFontMetrics(bigFont);
-    int strWidth = fm.stringWidth(gameOverStr);
-    if (strWidth > this.getWidth() - 10) {
-      biggestFont = currentFont;
-      bigFont = biggestFont;
-      fm = g2d.getFontMetrics(bigFont);
-      strWidth = fm.stringWidth(gameOverStr);
+   * Draws a cached message centered on the given x coordinate, adding the
+   * pixels it covers to the dirty regions.
+   * 
+   * @param text
+   *          - the message to draw
+   * @param size
+   *          - the font size
+   * @param centerX
+   *          - the x coordinate the message is centered on
+   * @param baseline
+   *          - the y coordinate of the message's first baseline
+   */
+  private void drawText(CachedText text, int size, int centerX, int baseline) {
+    Rectangle bounds = text.draw(g2d, size, centerX, baseline);
+    if (dirtyRegions != null) {
+      dirtyRegions.add(bounds.x, bounds.y, bounds.width, bounds.height);
     }
-    int ascent = fm.getAscent();
-    int strX = (this.getWidth() - strWidth) / 2;
-    int strY = (this.getHeight() + ascent) / 2;
-    g2d.setFont(bigFont);
-    g2d.setPaint(Color.WHITE);
-    g2d.drawString(gameOverStr, strX, strY);
   }
 
   /**
-   * Draws the initial "Get Ready!" message.
+   * Draws the measured tick and frame rates in the screen's corner, and the
+   * number of dropped key events if any.
    */
-  private void drawGetReady() {
-    String readyStr = "Get Ready!";
-    g2d.setFont(originalFont.deriveFont(originalFont.getSize2D() + 1));
-    FontMetrics fm = g2d.getFontMetrics();
-    int ascent = fm.getAscent();
-    int strWidth = fm.stringWidth(readyStr);
-    int strX = (this.getWidth() - strWidth) / 2;
-    int strY = (this.getHeight() + ascent) / 2;
-    g2d.setPaint(Color.WHITE);
-    g2d.drawString(readyStr, strX, strY);
+  private void drawFrameRates() {
+    g2d.setFont(originalFont);
+    g2d.setPaint(Color.GREEN);
+    String rates = String.format("%.1f tps / %.1f fps / %.1f ms input",
+        gameLoop.getTicksPerSecond(), renderLoop.getFramesPerSecond(),
+        renderLoop.getInputLatencyMillis());
+    long droppedEvents = gameLoop.getDroppedInputEvents();
+    if (droppedEvents > 0) {
+      rates += " / " + droppedEvents + " keys dropped";
+    }
+    drawString(rates, 5, 15);
   }
 
   /**
-   * Draws the specified number of stars randomly on the game screen.
+   * Display initial game title screen.
    * 
-   * @param numberOfStars
-   *          the number of stars to draw
+   * @param tickTime
+   *          - the tick time of the snapshot being drawn
    */
-  private void drawStars(int numberOfStars) {
-    g2d.setColor(Color.WHITE);
-    for (int i = 0; i < numberOfStars; i++) {
-      int x = (int) (Math.random() * this.getWidth());
-      int y = (int) (Math.random() * this.getHeight());
-      g2d.drawLine(x, y, x, y);
-    }
+  private void initialMessage(long tickTime) {
+    int size = growFont(titleText, tickTime);
+    int ascent = titleText.getAscent(g2d, size);
+    int centerX = this.getWidth() / 2;
+    drawText(titleText, size, centerX, (this.getHeight() + ascent) / 2 - ascent);
+
+    int footerSize = originalFont.getSize();
+    int footerAscent = titleFooterText.getAscent(g2d, footerSize);
+    drawText(titleFooterText, footerSize, centerX,
+        (this.getHeight() + footerAscent) / 2 + ascent + 16);
   }
 
   /**
-   * Display initial game title screen.
+   * Returns the game graphics manager.
+   * 
+   * @return the graphics manager
    */
-  private void initialMessage() {
-    String gameTitleStr = "Void Space";
-
-    Font currentFont = biggestFont == null ? bigFont : biggestFont;
-    float fontSize = currentFont.getSize2D();
-    bigFont = currentFont.deriveFont(fontSize + 1).deriveFont(Font.BOLD).deriveFont(Font.ITALIC);
-    FontMetrics fm = g2d.getFontMetrics(bigFont);
-    int strWidth = fm.stringWidth(gameTitleStr);
-    if (strWidth > this.getWidth() - 10) {
-      bigFont = currentFont;
-      biggestFont = currentFont;
-      fm = g2d.getFontMetrics(currentFont);
-      strWidth = fm.stringWidth(gameTitleStr);
-    }
-    g2d.setFont(bigFont);
-    int ascent = fm.getAscent();
-    int strX = (this.getWidth() - strWidth) / 2;
-    int strY = (this.getHeight() + ascent) / 2 - ascent;
-    g2d.setPaint(Color.YELLOW);
-    g2d.drawString(gameTitleStr, strX, strY);
-
-    g2d.setFont(originalFont);
-    fm = g2d.getFontMetrics();
-    String newGameStr = "Press <Space> to Start a New Game.";
-    strWidth = fm.stringWidth(newGameStr);
-    strX = (this.getWidth() - strWidth) / 2;
-    strY = (this.getHeight() + fm.getAscent()) / 2 + ascent + 16;
-    g2d.setPaint(Color.WHITE);
-    g2d.drawString(newGameStr, strX, strY);
-
-    fm = g2d.getFontMetrics();
-    String exitGameStr = "Press <Esc> to Exit the Game.";
-    strWidth = fm.stringWidth(exitGameStr);
-    strX = (this.getWidth() - strWidth) / 2;
-    strY = strY + 16;
-    g2d.drawString(exitGameStr, strX, strY);
-
-    // by team machete
-    fm = g2d.getFontMetrics();
-    String teamMachete = "By: Team Machete";
-    strWidth = fm.stringWidth(teamMachete);
-    strX = (this.getWidth() - strWidth) / 2;
-    strY = strY + 16;
-    g2d.drawString(teamMachete, strX, strY);
-
-    fm = g2d.getFontMetrics();
-    String names = "Samuel Rodriguez & Nelian Colon";
-    strWidth = fm.stringWidth(names);
-    strX = (this.getWidth() - strWidth) / 2;
-    strY = strY + 16;
-    g2d.drawString(names, strX, strY);
+  public GraphicsManager getGraphicsMan() {
+    return graphicsMan;
   }
 
   /**
-   * Prepare screen for game over.
+   * Sets the game graphics manager.
+   * 
+   * @param graphicsMan
+   *          the graphics manager
    */
-  public void doGameOver() {
-    shipsValueLabel.setForeground(new Color(128, 0, 0));
+  public void setGraphicsMan(GraphicsManager graphicsMan) {
+    this.graphicsMan = graphicsMan;
+    initSprites();
   }
 
   /**
-   * Prepare screen for a new game.
+   * Sets the random stream the background stars are placed with.
+   * 
+   * @param starfieldRandom
+   *          the starfield stream, only used by the render thread
    */
-  public void doNewGame() {
-    // init all asteroid times is not necessary
-    lastShipTime = -GameSettings.NEW_SHIP_DELAY;
-
-    bigFont = originalFont;
-    biggestFont = null;
-
-    // set labels' text
-    shipsValueLabel.setForeground(Color.WHITE);
-    shipsValueLabel.setText(Integer.toString(status.getShipsLeft()));
-    destroyedValueLabel.setText(Long.toString(status.getAsteroidsDestroyed()));
-    pointsValueLabel.setText(Long.toString(status.getPoints()));
-    levelValueLabel.setText(Integer.toString(status.getLevel()));
-    destroyedEnemyShipsValueLabel.setText(Long.toString(status.getEnemyShipsDestroyed()));
-    bulletsFiredValueLabel.setText(Long.toString(status.getBulletsFired()));
-    if (GameSettings.BULLETS_ARE_LIMITED)
-      bulletsRemainingValueLabel.setText(Long.toString(status.getBulletsRemaining()));
-
-    // update hit-miss ratio
-    if (status.getBulletsFired() > 0) {
-      hitMissRatioValueLabel.setText(String.format("%.2f", status.getHitMissRatio()));
-    } else {
-      hitMissRatioValueLabel.setText(" --");
-    }
-
+  public void setStarfieldRandom(RandomStream starfieldRandom) {
+    this.starfieldRandom = starfieldRandom;
   }
 
   /**
-   * Sets the game graphics manager.
+   * Sets the game loop, used to display the measured tick rate.
    * 
-   * @param graphicsMan
-   *          the graphics manager
+   * @param gameLoop
+   *          the game loop
    */
-  public void setGraphicsMan(GraphicsManager graphicsMan) {
-    this.graphicsMan = graphicsMan;
+  public void setGameLoop(GameLoop gameLoop) {
+    this.gameLoop = gameLoop;
   }
 
   /**
-   * Sets the game logic handler
+   * Sets the render loop, used to display the measured frame rate.
    * 
-   * @param gameLogic
-   *          the game logic handler
+   * @param renderLoop
+   *          the render loop
    */
-  public void setGameLogic(GameLogic gameLogic) {
-    this.gameLogic = gameLogic;
-    this.status = gameLogic.getStatus();
-    this.soundMan = gameLogic.getSoundMan();
+  public void setRenderLoop(RenderLoop renderLoop) {
+    this.renderLoop = renderLoop;
   }
 
   /**
@@ -957,7 +622,7 @@ public class GameScreen extends JPanel {
    *          the label to set
    */
   public void setDestroyedValueLabel(JLabel destroyedValueLabel) {
-    this.destroyedValueLabel = destroyedValueLabel;
+    hud.setLabel(HudModel.ASTEROIDS_DESTROYED, destroyedValueLabel);
   }
 
   /**
@@ -967,7 +632,7 @@ public class GameScreen extends JPanel {
    *          - the label to set
    */
   public void setDestroyedEnemyShipsValueLabel(JLabel destroyedEnemyShipsValueLabel) {
-    this.destroyedEnemyShipsValueLabel = destroyedEnemyShipsValueLabel;
+    hud.setLabel(HudModel.ENEMY_SHIPS_DESTROYED, destroyedEnemyShipsValueLabel);
   }
 
   /**
@@ -977,7 +642,7 @@ public class GameScreen extends JPanel {
    *          - the label to be set
    */
   public void setPointsValueLabel(JLabel pointsValueLabel) {
-    this.pointsValueLabel = pointsValueLabel;
+    hud.setLabel(HudModel.POINTS, pointsValueLabel);
   }
 
   /**
@@ -987,7 +652,7 @@ public class GameScreen extends JPanel {
    *          - the label to be set
    */
   public void setLevelValueLabel(JLabel levelValueLabel) {
-    this.levelValueLabel = levelValueLabel;
+    hud.setLabel(HudModel.LEVEL, levelValueLabel);
   }
 
   /**
@@ -998,7 +663,7 @@ public class GameScreen extends JPanel {
    *          - the label to be set
    */
   public void setBulletsFiredValueLabel(JLabel bulletsFiredValueLabel) {
-    this.bulletsFiredValueLabel = bulletsFiredValueLabel;
+    hud.setLabel(HudModel.BULLETS_FIRED, bulletsFiredValueLabel);
   }
 
   /**
@@ -1008,7 +673,7 @@ public class GameScreen extends JPanel {
    *          - the label to set
    */
   public void setBulletsRemainingValueLabel(JLabel bulletsRemainingValueLabel) {
-    this.bulletsRemainingValueLabel = bulletsRemainingValueLabel;
+    hud.setLabel(HudModel.BULLETS_REMAINING, bulletsRemainingValueLabel);
   }
 
   /**
@@ -1018,7 +683,7 @@ public class GameScreen extends JPanel {
    *          - the label to set
    */
   public void setHitMissRatioValueLabel(JLabel hitMissRatioValueLabel) {
-    this.hitMissRatioValueLabel = hitMissRatioValueLabel;
+    hud.setLabel(HudModel.HIT_MISS_RATIO, hitMissRatioValueLabel);
   }
 
   /**
@@ -1028,6 +693,6 @@ public class GameScreen extends JPanel {
    *          the label to set
    */
   public void setShipsValueLabel(JLabel shipsValueLabel) {
-    this.shipsValueLabel = shipsValueLabel;
+    hud.setLabel(HudModel.SHIPS_LEFT, shipsValueLabel);
   }
 }
@@ -15,6 +15,25 @@ public class GameSettings {
   public static final int MAIN_FRAME_Y_SIZE = 605;
   public static final int GAME_FRAME_X_SIZE = 700;
   public static final int GAME_FRAME_Y_SIZE = 500;
+  // GAME LOOP SETTINGS
+  public static final int TICKS_PER_SECOND = 60;
+  // most ticks the game loop runs at once to catch up when it is late
+  public static final int MAX_CATCH_UP_TICKS = 5;
+  public static final int MAX_FRAMES_PER_SECOND = 120;
+  public static final boolean SHOW_FRAME_RATES = false;
+
+  // RENDERING SETTINGS
+  // draw frames straight to the screen through a buffer strategy, instead of
+  // through Swing's repaint(); and how many buffers to flip between
+  public static final boolean ACTIVE_RENDERING = true;
+  public static final int RENDER_BUFFERS = 2;
+  // draw through Swing, clearing and repainting only what changed in each
+  // frame; stars don't scroll, and active rendering is not used
+  public static final boolean DIRTY_RECTANGLES = false;
+  // background stars, split in layers scrolling at different speeds
+  public static final int STARS = 2000;
+  public static final int STAR_LAYERS = 3;
+
   // MESSAGES DELAY TIME
   public static final int GET_READY_DELAY_TIME = 1500;
   public static final int GAME_OVER_DELAY_TIME = 3000;
@@ -85,8 +104,75 @@ public class GameSettings {
   public static final int BULLETS_PER_SECOND = 5;
   public static final int BULLETS_PER_SECOND_FAST = 7;
 
+  // most bullets on the screen at once; the ship can not fire while all of
+  // its bullets are on the screen
+  public static final int MAX_BULLETS = 64;
+  public static final int MAX_ENEMY_BULLETS = 64;
+
+  // size of the grid cells used to find collisions, a power of two at least
+  // the size of the largest sprite
+  public static final int COLLISION_CELL_SIZE = 64;
+
   // player's extra ships changes
   public static final int LEVELS_FOR_EXTRA_SHIPS = 1;
   public static final int EXTRA_SHIPS_PER_LEVELS = 1;
 
+  /**
+   * Returns the settings that change how a game plays, in a fixed order.
+   * Recordings and saved games are only valid with the same settings.
+   * 
+   * @return the settings, doubles as their bits and booleans as 0 or 1
+   */
+  static long[] getGameplaySettings() {
+    return new long[] {
+        GAME_FRAME_X_SIZE,
+        GAME_FRAME_Y_SIZE,
+        TICKS_PER_SECOND,
+        GET_READY_DELAY_TIME,
+        GAME_OVER_DELAY_TIME,
+        INITIAL_NUM_OF_SHIPS,
+        BULLETS_ARE_LIMITED ? 1 : 0,
+        INITIAL_BULLETS_REMAINING,
+        LEVELS_FOR_GAINING_BULLETS,
+        BULLET_GAIN_PER_LEVELS,
+        BULLETS_PER_LIVES,
+        ENEMY_SHIP_POINTS,
+        ASTEROID_POINTS,
+        CHANGE_LEVEL_WITH_POINTS ? 1 : 0,
+        POINTS_TO_NEXT_LEVEL,
+        TARGETS_TO_NEXT_LEVEL,
+        NEW_SHIP_DELAY,
+        NEW_ASTEROID_DELAY,
+        NEW_ENEMY_SHIP_DELAY,
+        ASTEROID_SINUSOIDAL_MOVEMENT ? 1 : 0,
+        ASTEROID_NELIANS_TECATEX_MOVEMENT ? 1 : 0,
+        LEVEL_TO_MOVE_ASTEROIDS,
+        LEVEL_TO_MOVE_ASTEROIDS_2X,
+        LEVEL_TO_MOVE_ASTEROIDS_3X,
+        Double.doubleToLongBits(SPEED_TO_MOVE_ASTEROIDS_2X),
+        Double.doubleToLongBits(SPEED_TO_MOVE_ASTEROIDS_3X),
+        LEVEL_FOR_ASTEROIDS_L2,
+        LEVEL_FOR_ASTEROIDS_L3,
+        NUM_ASTEROIDS_L1,
+        NUM_ASTEROIDS_L2,
+        NUM_ASTEROIDS_L3,
+        LEVEL_FOR_ENEMY_SHIPS_L2,
+        LEVEL_FOR_ENEMY_SHIPS_L3,
+        NUM_ENEMY_SHIPS_L1,
+        NUM_ENEMY_SHIPS_L2,
+        NUM_ENEMY_SHIPS_L3,
+        NUM_CHUCK_NORRIS_L1,
+        LEVEL_TO_MOVE_ENEMY_SHIP_2X,
+        LEVEL_TO_MOVE_ENEMY_SHIP_3X,
+        Double.doubleToLongBits(SPEED_TO_MOVE_ENEMY_SHIP_2X),
+        Double.doubleToLongBits(SPEED_TO_MOVE_ENEMY_SHIP_3X),
+        LEVEL_TO_FASTER_BULLETS,
+        BULLETS_PER_SECOND,
+        BULLETS_PER_SECOND_FAST,
+        MAX_BULLETS,
+        MAX_ENEMY_BULLETS,
+        COLLISION_CELL_SIZE,
+        LEVELS_FOR_EXTRA_SHIPS,
+        EXTRA_SHIPS_PER_LEVELS };
+  }
 }
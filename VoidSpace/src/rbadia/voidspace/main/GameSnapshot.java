@@ -0,0 +1,258 @@
+package rbadia.voidspace.main;
+
+/**
+ * Everything needed to draw one simulation tick: the game flags, the values
+ * shown by the status labels and the list of sprites on the screen.
+ *
+ * Snapshots are filled in by the simulation thread and published once per
+ * tick. They are never changed after being published, so the render thread
+ * can read them without any locking.
+ */
+public final class GameSnapshot {
+  // sprite kinds
+  public static final int SHIP = 0;
+  public static final int BULLET = 1;
+  public static final int ASTEROID = 2;
+  public static final int CHUCK_NORRIS = 3;
+  public static final int ENEMY_SHIP = 4;
+  public static final int ENEMY_BULLET = 5;
+  public static final int SHIP_EXPLOSION = 6;
+  public static final int ASTEROID_EXPLOSION = 7;
+  public static final int ENEMY_SHIP_EXPLOSION = 8;
+
+  private final long tickTime;
+  // the time of the first key event handled since the last snapshot, or 0
+  private long inputTime;
+
+  // game flags and status variables
+  private final StatusSnapshot status;
+
+  // sprites, one entry per index
+  private int spriteCount;
+  private final int[] kinds;
+  private final int[] previousX;
+  private final int[] previousY;
+  private final int[] x;
+  private final int[] y;
+
+  /**
+   * Creates a new snapshot of the given game status, with room for the given
+   * number of sprites.
+   *
+   * @param status
+   *          - the game status at the end of the tick
+   * @param tickTime
+   *          - the System.nanoTime() at which the tick ended
+   * @param capacity
+   *          - the maximum number of sprites in the snapshot
+   */
+  GameSnapshot(StatusSnapshot status, long tickTime, int capacity) {
+    this.tickTime = tickTime;
+    this.status = status;
+
+    this.kinds = new int[capacity];
+    this.previousX = new int[capacity];
+    this.previousY = new int[capacity];
+    this.x = new int[capacity];
+    this.y = new int[capacity];
+  }
+
+  /**
+   * Adds a sprite to the snapshot. Must only be called before the snapshot is
+   * published.
+   *
+   * @param kind
+   *          - the kind of sprite
+   * @param previousX
+   *          - the x coordinate at the start of the tick
+   * @param previousY
+   *          - the y coordinate at the start of the tick
+   * @param x
+   *          - the x coordinate at the end of the tick
+   * @param y
+   *          - the y coordinate at the end of the tick
+   */
+  void addSprite(int kind, int previousX, int previousY, int x, int y) {
+    this.kinds[spriteCount] = kind;
+    this.previousX[spriteCount] = previousX;
+    this.previousY[spriteCount] = previousY;
+    this.x[spriteCount] = x;
+    this.y[spriteCount] = y;
+    spriteCount++;
+  }
+
+  /**
+   * Sets the time of the first key event the snapshot shows the effect of.
+   * Must only be called before the snapshot is published.
+   *
+   * @param inputTime
+   *          - the time of the key event, from System.nanoTime(), or 0
+   */
+  void setInputTime(long inputTime) {
+    this.inputTime = inputTime;
+  }
+
+  /**
+   * Returns the time of the first key event the snapshot shows the effect of.
+   *
+   * @return the time of the key event, from System.nanoTime(), or 0 if no key
+   *         event was handled since the previous snapshot
+   */
+  public long getInputTime() {
+    return inputTime;
+  }
+
+  /**
+   * Returns the System.nanoTime() at which the tick ended.
+   *
+   * @return the time the tick ended
+   */
+  public long getTickTime() {
+    return tickTime;
+  }
+
+  /**
+   * Indicates if the game had already started.
+   *
+   * @return if the game had already started
+   */
+  public boolean isGameStarted() {
+    return status.isGameStarted();
+  }
+
+  /**
+   * Indicates if the "Get Ready" message was displaying.
+   *
+   * @return if the game was starting
+   */
+  public boolean isGameStarting() {
+    return status.isGameStarting();
+  }
+
+  /**
+   * Indicates if the "Game Over" message was displaying.
+   *
+   * @return if the game was over
+   */
+  public boolean isGameOver() {
+    return status.isGameOver();
+  }
+
+  /**
+   * Returns the number of asteroids destroyed.
+   *
+   * @return the number of asteroids destroyed
+   */
+  public long getAsteroidsDestroyed() {
+    return status.getAsteroidsDestroyed();
+  }
+
+  /**
+   * Returns the number of enemy ships destroyed.
+   *
+   * @return the number of enemy ships destroyed
+   */
+  public long getEnemyShipsDestroyed() {
+    return status.getEnemyShipsDestroyed();
+  }
+
+  /**
+   * Returns the number of points the player had.
+   *
+   * @return the number of points
+   */
+  public long getPoints() {
+    return status.getPoints();
+  }
+
+  /**
+   * Returns the number of ships left.
+   *
+   * @return the number of ships left
+   */
+  public int getShipsLeft() {
+    return status.getShipsLeft();
+  }
+
+  /**
+   * Returns the number of bullets fired.
+   *
+   * @return the number of bullets fired
+   */
+  public long getBulletsFired() {
+    return status.getBulletsFired();
+  }
+
+  /**
+   * Returns the number of bullets remaining.
+   *
+   * @return the number of bullets remaining
+   */
+  public long getBulletsRemaining() {
+    return status.getBulletsRemaining();
+  }
+
+  /**
+   * Returns the level the player was in.
+   *
+   * @return the level
+   */
+  public int getLevel() {
+    return status.getLevel();
+  }
+
+  /**
+   * Returns the hit/miss ratio.
+   *
+   * @return the hit/miss ratio
+   */
+  public float getHitMissRatio() {
+    return status.getHitMissRatio();
+  }
+
+  /**
+   * Returns the number of sprites in the snapshot.
+   *
+   * @return the number of sprites
+   */
+  public int getSpriteCount() {
+    return spriteCount;
+  }
+
+  /**
+   * Returns the kind of the given sprite.
+   *
+   * @param i
+   *          - the sprite index
+   * @return the kind of sprite, one of the sprite kind constants
+   */
+  public int getKind(int i) {
+    return kinds[i];
+  }
+
+  /**
+   * Returns the x coordinate to draw the given sprite at.
+   *
+   * @param i
+   *          - the sprite index
+   * @param alpha
+   *          - how far along the next tick the frame is, from 0 to 1
+   * @return the x coordinate interpolated between the last two ticks
+   */
+  public int getX(int i, float alpha) {
+    return previousX[i] + Math.round((x[i] - previousX[i]) * alpha);
+  }
+
+  /**
+   * Returns the y coordinate to draw the given sprite at.
+   *
+   * @param i
+   *          - the sprite index
+   * @param alpha
+   *          - how far along the next tick the frame is, from 0 to 1
+   * @return the y coordinate interpolated between the last two ticks
+   */
+  public int getY(int i, float alpha) {
+    return previousY[i] + Math.round((y[i] - previousY[i]) * alpha);
+  }
+}
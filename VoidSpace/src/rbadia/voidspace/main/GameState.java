@@ -0,0 +1,178 @@
+package rbadia.voidspace.main;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * A saved game: the whole state of a game between two ticks, in a compact,
+ * versioned binary format. Restoring it puts the game back exactly as it
+ * was, so it can be used to save and load games, to roll a game back, or to
+ * hand a game over to another process.
+ *
+ * The state starts with a header: the magic number, the format version, a
+ * fingerprint of the gameplay settings and the length of the rest. The rest
+ * is written by GameLoop.saveState(): the game clock, the random streams, the
+ * game status, the entities and the input state, field by field. The buffer
+ * is reused from save to save, so saving allocates nothing once the buffer
+ * is big enough.
+ */
+public class GameState {
+  static final int MAGIC = 0x56535347; // "VSSG"
+  static final int VERSION = 1;
+
+  // the magic number, version, settings fingerprint and length
+  private static final int HEADER_SIZE = 4 + 1 + 8 + 4;
+  private static final int LENGTH_OFFSET = HEADER_SIZE - 4;
+
+  private static final long SETTINGS = fingerprint(GameSettings.getGameplaySettings());
+
+  private ByteBuffer buffer;
+  private boolean saved;
+
+  /**
+   * Creates a new, empty saved game.
+   */
+  public GameState() {
+    this(4096);
+  }
+
+  /**
+   * Creates a new, empty saved game.
+   *
+   * @param capacity
+   *          - the initial size of the buffer, in bytes; it grows as needed
+   */
+  public GameState(int capacity) {
+    buffer = ByteBuffer.allocate(capacity);
+  }
+
+  /**
+   * Saves the state of a game, replacing the state saved before. Must be
+   * called between two ticks, by the thread running the game.
+   *
+   * @param gameLoop
+   *          - the game loop owning the game state
+   */
+  public void save(GameLoop gameLoop) {
+    while (true) {
+      try {
+        buffer.clear();
+        buffer.putInt(MAGIC).put((byte) VERSION).putLong(SETTINGS).putInt(0);
+        gameLoop.saveState(buffer);
+        break;
+      } catch (BufferOverflowException e) {
+        buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+      }
+    }
+    buffer.putInt(LENGTH_OFFSET, buffer.position() - HEADER_SIZE);
+    buffer.flip();
+    saved = true;
+  }
+
+  /**
+   * Puts a game back in the saved state. Must be called between two ticks, by
+   * the thread running the game. The state can be restored any number of
+   * times.
+   *
+   * @param gameLoop
+   *          - the game loop owning the game state
+   */
+  public void restore(GameLoop gameLoop) {
+    if (!saved) {
+      throw new IllegalStateException("No game saved");
+    }
+    buffer.position(HEADER_SIZE);
+    gameLoop.restoreState(buffer);
+  }
+
+  /**
+   * Indicates if a game was saved or read.
+   *
+   * @return true if there is a state to restore
+   */
+  public boolean isSaved() {
+    return saved;
+  }
+
+  /**
+   * Returns the size of the saved state, header included.
+   *
+   * @return the size, in bytes
+   */
+  public int getSize() {
+    return saved ? buffer.limit() : 0;
+  }
+
+  /**
+   * Writes the saved state to a stream, e.g. a file or a socket.
+   *
+   * @param out
+   *          - the stream to write to
+   * @throws IOException
+   *           if the stream can not be written
+   */
+  public void writeTo(OutputStream out) throws IOException {
+    if (!saved) {
+      throw new IllegalStateException("No game saved");
+    }
+    out.write(buffer.array(), 0, buffer.limit());
+    out.flush();
+  }
+
+  /**
+   * Reads a state written by writeTo(), replacing the state saved before.
+   *
+   * @param stream
+   *          - the stream to read from
+   * @throws IOException
+   *           if the stream can not be read, is not a saved game, or was
+   *           saved with another format version or other game settings
+   */
+  public void readFrom(InputStream stream) throws IOException {
+    DataInputStream in = new DataInputStream(stream);
+    saved = false;
+    if (in.readInt() != MAGIC) {
+      throw new IOException("Not a Void Space saved game");
+    }
+    int version = in.readUnsignedByte();
+    if (version != VERSION) {
+      throw new IOException("Unsupported saved game version " + version);
+    }
+    if (in.readLong() != SETTINGS) {
+      throw new IOException("Saved with different game settings");
+    }
+    int length = in.readInt();
+    if (length < 0) {
+      throw new IOException("Bad saved game length " + length);
+    }
+
+    if (buffer.capacity() < HEADER_SIZE + length) {
+      buffer = ByteBuffer.allocate(HEADER_SIZE + length);
+    }
+    buffer.clear();
+    buffer.putInt(MAGIC).put((byte) VERSION).putLong(SETTINGS).putInt(length);
+    in.readFully(buffer.array(), HEADER_SIZE, length);
+    buffer.limit(HEADER_SIZE + length);
+    saved = true;
+  }
+
+  /**
+   * Combines the gameplay settings into one number, to tell whether a state
+   * was saved with the same settings.
+   */
+  private static long fingerprint(long[] settings) {
+    // FNV-1a over the settings' bytes
+    long hash = 0xcbf29ce484222325L;
+    for (int s = 0; s < settings.length; s++) {
+      for (int shift = 0; shift < 64; shift += 8) {
+        hash ^= (settings[s] >>> shift) & 0xff;
+        hash *= 0x100000001b3L;
+      }
+    }
+    return hash;
+  }
+}
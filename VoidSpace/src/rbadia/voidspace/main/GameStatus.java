@@ -1,12 +1,17 @@
 package rbadia.voidspace.main;
 
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
 
 import rbadia.voidspace.model.Asteroid;
 import rbadia.voidspace.model.EnemyShip;
+import rbadia.voidspace.model.EntityStore;
 
 /**
  * Container for game flags and/or status variables.
+ *
+ * The status is owned by the simulation thread: only that thread reads or
+ * changes it, without any locking. At the end of every tick the simulation
+ * publishes an immutable snapshot of it, which other threads read instead.
  */
 public class GameStatus {
   // game flags
@@ -27,8 +32,11 @@ public class GameStatus {
   // the game logic
   private GameLogic gameLogic;
 
-  public GameStatus() {
+  // the status as of the end of the last tick, for other threads
+  private volatile StatusSnapshot published;
 
+  public GameStatus() {
+    publish();
   }
 
   /**
@@ -36,7 +44,7 @@ public class GameStatus {
    * 
    * @return if the game has already started or not
    */
-  public synchronized boolean isGameStarted() {
+  public boolean isGameStarted() {
     return gameStarted;
   }
 
@@ -46,7 +54,7 @@ public class GameStatus {
    * @param gameStarted
    *          - should be true if the game started, false otherwise
    */
-  public synchronized void setGameStarted(boolean gameStarted) {
+  public void setGameStarted(boolean gameStarted) {
     this.gameStarted = gameStarted;
   }
 
@@ -56,7 +64,7 @@ public class GameStatus {
    * 
    * @return if the game is starting or not.
    */
-  public synchronized boolean isGameStarting() {
+  public boolean isGameStarting() {
     return gameStarting;
   }
 
@@ -66,7 +74,7 @@ public class GameStatus {
    * @param gameStarting
    *          - should be true if the game is starting, false otherwise
    */
-  public synchronized void setGameStarting(boolean gameStarting) {
+  public void setGameStarting(boolean gameStarting) {
     this.gameStarting = gameStarting;
   }
 
@@ -75,7 +83,7 @@ public class GameStatus {
    * 
    * @return if the game has ended and the "Game Over" message is displaying.
    */
-  public synchronized boolean isGameOver() {
+  public boolean isGameOver() {
     return gameOver;
   }
 
@@ -85,7 +93,7 @@ public class GameStatus {
    * @param gameOver
    *          - should be true if the game is over, false otherwise
    */
-  public synchronized void setGameOver(boolean gameOver) {
+  public void setGameOver(boolean gameOver) {
     this.gameOver = gameOver;
   }
 
@@ -94,7 +102,7 @@ public class GameStatus {
    * 
    * @return if a new ship should be created/drawn
    */
-  public synchronized boolean isNewShip() {
+  public boolean isNewShip() {
     return newShip;
   }
 
@@ -104,7 +112,7 @@ public class GameStatus {
    * @param newShip
    *          - should be true if the player's ship is new, false otherwise
    */
-  public synchronized void setNewShip(boolean newShip) {
+  public void setNewShip(boolean newShip) {
     this.newShip = newShip;
   }
 
@@ -113,7 +121,7 @@ public class GameStatus {
    * 
    * @return the number of asteroid destroyed
    */
-  public synchronized long getAsteroidsDestroyed() {
+  public long getAsteroidsDestroyed() {
     return asteroidsDestroyed;
   }
 
@@ -122,7 +130,7 @@ public class GameStatus {
    * 
    * @return the number of enemy ships destroyed
    */
-  public synchronized long getEnemyShipsDestroyed() {
+  public long getEnemyShipsDestroyed() {
     return enemyShipsDestroyed;
   }
 
@@ -131,7 +139,7 @@ public class GameStatus {
    * 
    * @return the number of targets destroyed
    */
-  public synchronized long getTargetsDestroyed() {
+  public long getTargetsDestroyed() {
     return asteroidsDestroyed + enemyShipsDestroyed;
   }
 
@@ -140,7 +148,7 @@ public class GameStatus {
    * 
    * @return the current hit/miss ratio
    */
-  public synchronized float getHitMissRatio() {
+  public float getHitMissRatio() {
     if (bulletsFired > 0) {
       return ((float) getTargetsDestroyed() / (float) bulletsFired) * 100;
     } else {
@@ -154,7 +162,7 @@ public class GameStatus {
    * @param asteroidsDestroyed
    *          - the number of asteroids that have been destroyed
    */
-  public synchronized void setAsteroidsDestroyed(long asteroidsDestroyed) {
+  public void setAsteroidsDestroyed(long asteroidsDestroyed) {
     long newDestroyedAsteroids = asteroidsDestroyed - this.asteroidsDestroyed;
     this.asteroidsDestroyed = asteroidsDestroyed;
     setPoints(getPoints() + GameSettings.ASTEROID_POINTS * newDestroyedAsteroids);
@@ -166,7 +174,7 @@ public class GameStatus {
    * @param enemyShipsDestroyed
    *          - the number of enemy ships that have been destroyed
    */
-  public synchronized void setEnemyShipsDestroyed(long enemyShipsDestroyed) {
+  public void setEnemyShipsDestroyed(long enemyShipsDestroyed) {
     long newEnemyShipsDestroyed = enemyShipsDestroyed - this.enemyShipsDestroyed;
     this.enemyShipsDestroyed = enemyShipsDestroyed;
     setPoints(getPoints() + GameSettings.ENEMY_SHIP_POINTS * newEnemyShipsDestroyed);
@@ -177,7 +185,7 @@ public class GameStatus {
    * 
    * @return the number of bullets fired
    */
-  public synchronized long getBulletsFired() {
+  public long getBulletsFired() {
     return bulletsFired;
   }
 
@@ -187,7 +195,7 @@ public class GameStatus {
    * @param bulletsFired
    *          - the number of bullets fired.
    */
-  public synchronized void setBulletsFired(long bulletsFired) {
+  public void setBulletsFired(long bulletsFired) {
     this.bulletsFired = bulletsFired;
   }
 
@@ -196,7 +204,7 @@ public class GameStatus {
    * 
    * @return the number of bullets remaining
    */
-  public synchronized long getBulletsRemaining() {
+  public long getBulletsRemaining() {
     return bulletsRemaining;
   }
 
@@ -206,7 +214,7 @@ public class GameStatus {
    * @param bulletsRemaining
    *          - the number of bullets remaining
    */
-  public synchronized void setBulletsRemaining(long bulletsRemaining) {
+  public void setBulletsRemaining(long bulletsRemaining) {
     if (bulletsRemaining == 0 && getShipsLeft() > 1) {
       setShipsLeft(getShipsLeft() - 1);
       this.bulletsRemaining = GameSettings.BULLETS_PER_LIVES;
@@ -221,7 +229,7 @@ public class GameStatus {
    * 
    * @return the number ships left
    */
-  public synchronized int getShipsLeft() {
+  public int getShipsLeft() {
     return shipsLeft;
   }
 
@@ -231,7 +239,7 @@ public class GameStatus {
    * @param shipsLeft
    *          - the number of the player's ships left
    */
-  public synchronized void setShipsLeft(int shipsLeft) {
+  public void setShipsLeft(int shipsLeft) {
     this.shipsLeft = shipsLeft;
   }
 
@@ -240,7 +248,7 @@ public class GameStatus {
    * 
    * @return the number of points the player has
    */
-  public synchronized long getPoints() {
+  public long getPoints() {
     return points;
   }
 
@@ -250,7 +258,7 @@ public class GameStatus {
    * @param points
    *          the number of points the player has
    */
-  public synchronized void setPoints(long points) {
+  public void setPoints(long points) {
     this.points = points;
     updateLevel();
   }
@@ -260,7 +268,7 @@ public class GameStatus {
    * 
    * @return the level the player is in
    */
-  public synchronized int getLevel() {
+  public int getLevel() {
     return this.level;
   }
 
@@ -270,7 +278,7 @@ public class GameStatus {
    * @param level
    *          - the level the player is in
    */
-  public synchronized void updateBullets(int level) {
+  public void updateBullets(int level) {
     if (!gameStarting && level != 1 && level % GameSettings.LEVELS_FOR_GAINING_BULLETS == 0)
       this.bulletsRemaining += GameSettings.BULLET_GAIN_PER_LEVELS;
   }
@@ -281,7 +289,7 @@ public class GameStatus {
    * @param level
    *          - the level the player is in
    */
-  public synchronized void updateShips(int level) {
+  public void updateShips(int level) {
     if (!gameStarting && level != 1 && level % GameSettings.LEVELS_FOR_EXTRA_SHIPS == 0)
       this.shipsLeft += GameSettings.EXTRA_SHIPS_PER_LEVELS;
   }
@@ -293,20 +301,20 @@ public class GameStatus {
    * @param level
    *          - the level the player is in
    */
-  public synchronized void updateAsteroidCount(int level) {
+  public void updateAsteroidCount(int level) {
     // change asteroid count if it is the right time
-    ArrayList<Asteroid> asteroids = gameLogic.getAsteroidList();
+    EntityStore<Asteroid> asteroids = gameLogic.getAsteroidList();
     if (level == GameSettings.LEVEL_FOR_ASTEROIDS_L2
         && asteroids.size() < GameSettings.NUM_ASTEROIDS_L2) {
       // add correct number of new asteroids
       int asteroidsToAdd = GameSettings.NUM_ASTEROIDS_L2 - asteroids.size();
       for (int i = 0; i < asteroidsToAdd; i++)
-        asteroids.add(gameLogic.newAsteroid(gameLogic.getGameScreen()));
+        gameLogic.newAsteroid(gameLogic.getWorldBounds());
     } else if (level == GameSettings.LEVEL_FOR_ASTEROIDS_L3
         && asteroids.size() < GameSettings.NUM_ASTEROIDS_L3) {
       int asteroidsToAdd = GameSettings.NUM_ASTEROIDS_L3 - asteroids.size();
       for (int i = 0; i < asteroidsToAdd; i++)
-        asteroids.add(gameLogic.newAsteroid(gameLogic.getGameScreen()));
+        gameLogic.newAsteroid(gameLogic.getWorldBounds());
     }
   }
 
@@ -317,20 +325,20 @@ public class GameStatus {
    * @param level
    *          - the level the player is in
    */
-  public synchronized void updateEnemyShipCount(int level) {
+  public void updateEnemyShipCount(int level) {
     // change enemyShip count if it is the right time
-    ArrayList<EnemyShip> enemyShips = gameLogic.getEnemyShipList();
+    EntityStore<EnemyShip> enemyShips = gameLogic.getEnemyShipList();
     if (level == GameSettings.LEVEL_FOR_ENEMY_SHIPS_L2
         && enemyShips.size() < GameSettings.NUM_ENEMY_SHIPS_L2) {
       // add correct number of new asteroids
       int enemyShipsToAdd = GameSettings.NUM_ENEMY_SHIPS_L2 - enemyShips.size();
       for (int i = 0; i < enemyShipsToAdd; i++)
-        enemyShips.add(gameLogic.newEnemyShip(gameLogic.getGameScreen()));
+        gameLogic.newEnemyShip(gameLogic.getWorldBounds());
     } else if (level == GameSettings.LEVEL_FOR_ENEMY_SHIPS_L3
         && enemyShips.size() < GameSettings.NUM_ENEMY_SHIPS_L3) {
       int enemyShipsToAdd = GameSettings.NUM_ENEMY_SHIPS_L3 - enemyShips.size();
       for (int i = 0; i < enemyShipsToAdd; i++)
-        enemyShips.add(gameLogic.newEnemyShip(gameLogic.getGameScreen()));
+        gameLogic.newEnemyShip(gameLogic.getWorldBounds());
     }
   }
 
@@ -340,7 +348,7 @@ public class GameStatus {
    * @param level
    *          - the level the player is in
    */
-  public synchronized void setLevel(int level) {
+  public void setLevel(int level) {
     // update only if level changed
     if (level != this.level) {
       updateShips(level);
@@ -355,7 +363,7 @@ public class GameStatus {
    * Updates the level number depending on the player's game status (targets
    * destroyed, points, etc.)
    */
-  public synchronized void updateLevel() {
+  public void updateLevel() {
     if (GameSettings.CHANGE_LEVEL_WITH_POINTS)
       setLevel((int) (getPoints() / GameSettings.POINTS_TO_NEXT_LEVEL + 1));
     else
@@ -369,8 +377,71 @@ public class GameStatus {
    * @param gameLogic
    *          - the game logic that will be used
    */
-  public synchronized void setGameLogic(GameLogic gameLogic) {
+  public void setGameLogic(GameLogic gameLogic) {
     this.gameLogic = gameLogic;
   }
 
+  /**
+   * Publishes a snapshot of the status for other threads, unless nothing
+   * changed since the last one. Called by the simulation thread at the end of
+   * each tick.
+   * 
+   * @return the published snapshot
+   */
+  public StatusSnapshot publish() {
+    StatusSnapshot snapshot = published;
+    if (snapshot == null || !snapshot.matches(this)) {
+      snapshot = new StatusSnapshot(this);
+      published = snapshot;
+    }
+    return snapshot;
+  }
+
+  /**
+   * Returns the status as of the end of the last tick. Safe to call from any
+   * thread, and never blocks the simulation.
+   * 
+   * @return the last published snapshot
+   */
+  public StatusSnapshot getPublished() {
+    return published;
+  }
+
+  /**
+   * Writes the status to a buffer.
+   * 
+   * @param out
+   *          - the buffer to write to
+   */
+  public void saveState(ByteBuffer out) {
+    int flags = (gameStarted ? 1 : 0) | (gameStarting ? 2 : 0) | (gameOver ? 4 : 0)
+        | (newShip ? 8 : 0);
+    out.put((byte) flags);
+    out.putLong(asteroidsDestroyed).putLong(enemyShipsDestroyed).putLong(points);
+    out.putInt(shipsLeft).putLong(bulletsFired).putLong(bulletsRemaining).putInt(level);
+  }
+
+  /**
+   * Restores the status from a buffer written by saveState(), without any of
+   * the setters' side effects, and publishes it.
+   * 
+   * @param in
+   *          - the buffer to read from
+   */
+  public void restoreState(ByteBuffer in) {
+    int flags = in.get();
+    gameStarted = (flags & 1) != 0;
+    gameStarting = (flags & 2) != 0;
+    gameOver = (flags & 4) != 0;
+    newShip = (flags & 8) != 0;
+    asteroidsDestroyed = in.getLong();
+    enemyShipsDestroyed = in.getLong();
+    points = in.getLong();
+    shipsLeft = in.getInt();
+    bulletsFired = in.getLong();
+    bulletsRemaining = in.getLong();
+    level = in.getInt();
+    publish();
+  }
+
 }
@@ -0,0 +1,201 @@
+package rbadia.voidspace.main;
+
+import java.awt.event.KeyEvent;
+import java.io.IOException;
+
+import rbadia.voidspace.graphics.GraphicsManager;
+import rbadia.voidspace.model.GameRandom;
+import rbadia.voidspace.model.RandomStream;
+import rbadia.voidspace.model.WorldBounds;
+import rbadia.voidspace.sounds.SoundManager;
+
+/**
+ * Runs the game without a display, ticking as fast as possible instead of at
+ * TICKS_PER_SECOND; the game clock still advances one tick length per tick,
+ * so the game plays as it would on screen. Used for soak testing and to
+ * train game-playing bots, which drive the game through the input handler's
+ * pressKey and releaseKey.
+ * 
+ * Should be run with -Djava.awt.headless=true.
+ */
+public class HeadlessGame {
+  private GameLogic gameLogic;
+  private InputHandler inputHandler;
+  private GameLoop gameLoop;
+
+  /**
+   * Creates a new game with a playfield the size of the game screen and no
+   * sound. Games created with the same seed and played with the same input
+   * give the same results.
+   * 
+   * @param seed
+   *          - the seed for the game's random number service
+   */
+  public HeadlessGame(long seed) {
+    gameLogic = new GameLogic(new PlayfieldBounds(), new SoundManager(false), new GameClock(),
+        new GameRandom(seed));
+    gameLogic.setCollisionMasks(new GraphicsManager());
+    inputHandler = new InputHandler(gameLogic);
+    gameLoop = new GameLoop(gameLogic, inputHandler);
+  }
+
+  /**
+   * Advances the game by one tick.
+   */
+  public void tick() {
+    gameLoop.tick();
+  }
+
+  /**
+   * Advances the game by one tick with recorded input.
+   * 
+   * @param inputState
+   *          - the recorded input state of the tick
+   */
+  public void replayTick(int inputState) {
+    gameLoop.replayTick(inputState);
+  }
+
+  /**
+   * Returns the game loop, e.g. to record the game's input.
+   * 
+   * @return the game loop
+   */
+  public GameLoop getGameLoop() {
+    return gameLoop;
+  }
+
+  /**
+   * Returns the game logic handler
+   * 
+   * @return the game logic handler
+   */
+  public GameLogic getGameLogic() {
+    return gameLogic;
+  }
+
+  /**
+   * Returns the input handler, used to press and release keys.
+   * 
+   * @return the input handler
+   */
+  public InputHandler getInputHandler() {
+    return inputHandler;
+  }
+
+  /**
+   * Soak tests the game: plays it with a random bot for the given number of
+   * ticks (one million by default) and prints the resulting tick rate. The
+   * same seed always plays the same game. In stress mode, every new game is
+   * filled with the given number of asteroids. The bot's input can be
+   * recorded, to be replayed with ReplayGame, unless in stress mode. Before
+   * that, a separate game is left idle on the title screen for a while.
+   * 
+   * @param args
+   *          - the number of ticks to run, the seed, the number of asteroids
+   *          for stress mode and the file to record the input to
+   * @throws IOException
+   *           if the recording can not be written
+   */
+  public static void main(String[] args) throws IOException {
+    long ticks = args.length > 0 ? Long.parseLong(args[0]) : 1000000;
+    long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+    int stressAsteroids = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+    String recordFile = args.length > 3 ? args[3] : null;
+    int[] directions = { KeyEvent.VK_UP, KeyEvent.VK_DOWN, KeyEvent.VK_LEFT, KeyEvent.VK_RIGHT };
+
+    checkTitleScreen(seed);
+
+    HeadlessGame game = new HeadlessGame(seed);
+    GameLogic gameLogic = game.getGameLogic();
+    InputHandler input = game.getInputHandler();
+    RandomStream bot = new RandomStream(seed);
+    InputRecorder recorder = null;
+    if (recordFile != null) {
+      recorder = new InputRecorder(recordFile, seed);
+      game.getGameLoop().setRecorder(recorder);
+    }
+
+    long startTime = System.nanoTime();
+    for (long i = 0; i < ticks; i++) {
+      // hold fire (or start a new game) and change direction now and then
+      if (i % 30 == 0) {
+        input.pressKey(KeyEvent.VK_SPACE);
+        for (int j = 0; j < directions.length; j++)
+          input.releaseKey(directions[j]);
+        input.pressKey(directions[bot.nextInt(directions.length)]);
+      }
+      game.tick();
+
+      // stress mode: fill every new game with asteroids
+      if (gameLogic.getStatus().isGameStarting()) {
+        for (int j = gameLogic.getAsteroidList().size(); j < stressAsteroids; j++)
+          gameLogic.newAsteroid(gameLogic.getWorldBounds());
+      }
+    }
+    long elapsed = System.nanoTime() - startTime;
+    if (recorder != null) {
+      recorder.close();
+    }
+
+    printResults(gameLogic, seed, ticks, elapsed);
+  }
+
+  /**
+   * Runs a new game for a few seconds without any input, and checks that it
+   * stays on the title screen. Nothing may need the ship before the first
+   * game has started.
+   * 
+   * @param seed
+   *          - the seed for the game's random number service
+   */
+  static void checkTitleScreen(long seed) {
+    HeadlessGame game = new HeadlessGame(seed);
+    int ticks = 5 * GameSettings.TICKS_PER_SECOND;
+    for (int i = 0; i < ticks; i++) {
+      game.tick();
+    }
+    GameStatus status = game.getGameLogic().getStatus();
+    if (status.isGameStarted() || status.isGameStarting() || status.isGameOver()) {
+      throw new IllegalStateException("Idle game left the title screen");
+    }
+  }
+
+  /**
+   * Prints the tick rate and the results of a game.
+   * 
+   * @param gameLogic
+   *          - the game logic handler of the game
+   * @param seed
+   *          - the game's seed
+   * @param ticks
+   *          - the number of ticks run
+   * @param elapsed
+   *          - the time it took to run them, in nanoseconds
+   */
+  static void printResults(GameLogic gameLogic, long seed, long ticks, long elapsed) {
+    GameStatus status = gameLogic.getStatus();
+    System.out.println(ticks + " ticks in " + elapsed / 1000000 + " ms ("
+        + (ticks * 1000000000L / Math.max(elapsed, 1)) + " ticks per second)");
+    System.out.println("seed " + seed + ": level " + status.getLevel() + ", "
+        + status.getPoints() + " points, " + status.getBulletsFired() + " bullets fired, "
+        + status.getShipsLeft() + " ships left");
+    System.out.println("bullets: " + gameLogic.getBullets().getAllocationCount() + " created, "
+        + gameLogic.getBullets().getAcquireCount() + " fired; enemy bullets: "
+        + gameLogic.getEnemyBullets().getAllocationCount() + " created, "
+        + gameLogic.getEnemyBullets().getAcquireCount() + " fired");
+  }
+
+  /**
+   * Fixed world bounds, the size of the game screen.
+   */
+  private static class PlayfieldBounds implements WorldBounds {
+    public int getWidth() {
+      return GameSettings.GAME_FRAME_X_SIZE;
+    }
+
+    public int getHeight() {
+      return GameSettings.GAME_FRAME_Y_SIZE;
+    }
+  }
+}
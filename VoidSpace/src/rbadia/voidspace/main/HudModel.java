@@ -0,0 +1,209 @@
+package rbadia.voidspace.main;
+
+import java.awt.Color;
+import java.util.Arrays;
+
+import javax.swing.JLabel;
+import javax.swing.SwingUtilities;
+
+/**
+ * The values shown by the status labels below the game screen. The render
+ * thread updates the model with each snapshot; only the values that changed
+ * since they were last shown are formatted, and all the changes are handed
+ * to the labels together, in a single task on the event dispatch thread.
+ */
+public class HudModel {
+  // the status fields
+  public static final int SHIPS_LEFT = 0;
+  public static final int ASTEROIDS_DESTROYED = 1;
+  public static final int ENEMY_SHIPS_DESTROYED = 2;
+  public static final int LEVEL = 3;
+  public static final int POINTS = 4;
+  public static final int BULLETS_FIRED = 5;
+  public static final int BULLETS_REMAINING = 6;
+  public static final int HIT_MISS_RATIO = 7;
+  private static final int FIELD_COUNT = 8;
+
+  // shown as the hit/miss ratio before any bullet is fired
+  private static final long NO_RATIO = -1;
+
+  // the color of the ships left label during and after a game
+  private static final Color SHIPS_LEFT_COLOR = Color.WHITE;
+  private static final Color GAME_OVER_COLOR = new Color(128, 0, 0);
+
+  private final JLabel[] labels = new JLabel[FIELD_COUNT];
+
+  // what was last handed to the labels; only used by the render thread
+  private final long[] shown = new long[FIELD_COUNT];
+  private Color shownShipsColor = SHIPS_LEFT_COLOR;
+  private final char[] digits = new char[24];
+
+  // the changes not applied to the labels yet, guarded by this
+  private final String[] pendingTexts = new String[FIELD_COUNT];
+  private Color pendingShipsColor;
+  private boolean applyQueued;
+
+  // the changes being applied; only used by the event dispatch thread
+  private final String[] applying = new String[FIELD_COUNT];
+
+  private final Runnable applyPending = new Runnable() {
+    public void run() {
+      applyPending();
+    }
+  };
+
+  /**
+   * Creates a new model, with no labels.
+   */
+  public HudModel() {
+    // nothing is shown yet, so the first update changes every field
+    for (int f = 0; f < FIELD_COUNT; f++) {
+      shown[f] = Long.MIN_VALUE;
+    }
+  }
+
+  /**
+   * Sets the label that displays a status field.
+   *
+   * @param field
+   *          - the field, one of the constants of this class
+   * @param label
+   *          - the label, or null if the field is not displayed
+   */
+  public void setLabel(int field, JLabel label) {
+    labels[field] = label;
+  }
+
+  /**
+   * Updates the model with the values in a snapshot, handing the ones that
+   * changed to the labels. Called by the render thread.
+   *
+   * @param snapshot
+   *          - the snapshot to display
+   */
+  public void update(GameSnapshot snapshot) {
+    boolean changed = false;
+    changed |= update(SHIPS_LEFT, snapshot.getShipsLeft());
+    changed |= update(ASTEROIDS_DESTROYED, snapshot.getAsteroidsDestroyed());
+    changed |= update(ENEMY_SHIPS_DESTROYED, snapshot.getEnemyShipsDestroyed());
+    changed |= update(LEVEL, snapshot.getLevel());
+    changed |= update(POINTS, snapshot.getPoints());
+    changed |= update(BULLETS_FIRED, snapshot.getBulletsFired());
+    changed |= update(BULLETS_REMAINING, snapshot.getBulletsRemaining());
+
+    // the ratio is shown with two decimals, so it only changes when those do
+    long ratio = NO_RATIO;
+    if (snapshot.getBulletsFired() > 0) {
+      ratio = Math.round(snapshot.getHitMissRatio() * 100.0);
+    }
+    changed |= update(HIT_MISS_RATIO, ratio);
+
+    // ships left turn red on game over, back to white on the next game
+    Color shipsColor = shownShipsColor;
+    if (snapshot.isGameOver()) {
+      shipsColor = GAME_OVER_COLOR;
+    } else if (snapshot.isGameStarting()) {
+      shipsColor = SHIPS_LEFT_COLOR;
+    }
+    if (shipsColor != shownShipsColor) {
+      shownShipsColor = shipsColor;
+      synchronized (this) {
+        pendingShipsColor = shipsColor;
+      }
+      changed = true;
+    }
+
+    if (changed) {
+      queueApply();
+    }
+  }
+
+  /**
+   * Formats a field's new value if it changed, and keeps it to be applied.
+   *
+   * @return true if the value changed
+   */
+  private boolean update(int field, long value) {
+    if (value == shown[field] || labels[field] == null) {
+      return false;
+    }
+    shown[field] = value;
+    String text = field == HIT_MISS_RATIO ? formatRatio(value) : format(value, 0);
+    synchronized (this) {
+      pendingTexts[field] = text;
+    }
+    return true;
+  }
+
+  /**
+   * Formats a ratio given in hundredths with two decimals.
+   */
+  private String formatRatio(long hundredths) {
+    if (hundredths == NO_RATIO) {
+      return " --";
+    }
+    return format(hundredths, 2);
+  }
+
+  /**
+   * Formats a value in the reusable digits buffer, with the given number of
+   * its last digits after a decimal point.
+   */
+  private String format(long value, int decimals) {
+    boolean negative = value < 0;
+    int end = digits.length;
+    int start = end;
+    int written = 0;
+    do {
+      if (written == decimals && decimals > 0) {
+        digits[--start] = '.';
+      }
+      digits[--start] = (char) ('0' + Math.abs(value % 10));
+      value /= 10;
+      written++;
+    } while (value != 0 || written <= decimals);
+    if (negative) {
+      digits[--start] = '-';
+    }
+    return new String(digits, start, end - start);
+  }
+
+  /**
+   * Queues the task that applies the pending changes on the event dispatch
+   * thread, unless it is queued already.
+   */
+  private void queueApply() {
+    synchronized (this) {
+      if (applyQueued) {
+        return;
+      }
+      applyQueued = true;
+    }
+    SwingUtilities.invokeLater(applyPending);
+  }
+
+  /**
+   * Hands all the pending changes to the labels. Runs on the event dispatch
+   * thread.
+   */
+  private void applyPending() {
+    Color shipsColor;
+    synchronized (this) {
+      System.arraycopy(pendingTexts, 0, applying, 0, FIELD_COUNT);
+      Arrays.fill(pendingTexts, null);
+      shipsColor = pendingShipsColor;
+      pendingShipsColor = null;
+      applyQueued = false;
+    }
+
+    for (int f = 0; f < FIELD_COUNT; f++) {
+      if (applying[f] != null && labels[f] != null) {
+        labels[f].setText(applying[f]);
+        applying[f] = null;
+      }
+    }
+    if (shipsColor != null && labels[SHIPS_LEFT] != null) {
+      labels[SHIPS_LEFT].setForeground(shipsColor);
+    }
+  }
+}
@@ -2,19 +2,53 @@ package rbadia.voidspace.main;
 
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
+import java.nio.ByteBuffer;
 
 import rbadia.voidspace.model.Ship;
+import rbadia.voidspace.model.WorldBounds;
 
 /**
  * Handles user input events.
+ *
+ * Key events arrive on the event dispatch thread, which only timestamps them
+ * and adds them to a lock-free queue. The simulation thread drains the queue
+ * in order at the start of each tick, so it is the only thread that
+ * touches the key state. A key pressed and released between two ticks still
+ * acts on the next tick, as if it were held for that tick.
  */
 public class InputHandler implements KeyListener {
-  private boolean leftIsPressed;
-  private boolean rightIsPressed;
-  private boolean downIsPressed;
-  private boolean upIsPressed;
-  private boolean spaceIsPressed;
-  private boolean shiftIsPressed;
+  // the keys the game reacts to, as bits of the key state
+  public static final int KEY_UP = 1;
+  public static final int KEY_DOWN = 1 << 1;
+  public static final int KEY_LEFT = 1 << 2;
+  public static final int KEY_RIGHT = 1 << 3;
+  public static final int KEY_SPACE = 1 << 4;
+  public static final int KEY_SHIFT = 1 << 5;
+  // set in the input state when a new game is started
+  public static final int NEW_GAME = 1 << 6;
+  // keys that save or load the game instead of playing it
+  public static final int QUICK_SAVE = 1 << 7;
+  public static final int QUICK_LOAD = 1 << 8;
+
+  // most key events waiting for the next tick
+  private static final int QUEUE_CAPACITY = 1024;
+
+  private final InputQueue queue = new InputQueue(QUEUE_CAPACITY);
+
+  // key events dropped because the queue was full; only written by the event
+  // dispatch thread
+  private volatile long droppedEvents;
+
+  // the keys held down, and the keys pressed since the last tick; only used
+  // by the simulation thread
+  private int heldKeys;
+  private int tappedKeys;
+  private boolean newGameRequested;
+  private int stateRequest;
+  private boolean quickLoadEnabled = true;
+
+  // the time of the first key event since the last snapshot, or 0
+  private long inputTime;
 
   private long lastBulletTime;
 
@@ -31,57 +65,200 @@ public class InputHandler implements KeyListener {
   }
 
   /**
-   * Handle user input after screen update.
+   * Handle user input after the game update.
    * 
-   * @param gameScreen
-   *          he game screen
+   * @param currentTime
+   *          - the time of the current tick, in milliseconds
    */
-  public void handleInput(GameScreen gameScreen) {
+  public void handleInput(long currentTime) {
+    int keys = heldKeys | tappedKeys;
+    tappedKeys = 0;
+
     GameStatus status = gameLogic.getStatus();
-    if (!status.isGameOver() && !status.isNewShip() && !status.isGameStarting()) {
+    if (newGameRequested) {
+      newGameRequested = false;
+      if (!status.isGameStarted() && !status.isGameOver() && !status.isGameStarting()) {
+        // new game
+        lastBulletTime = currentTime;
+        gameLogic.newGame();
+      }
+      return;
+    }
+
+    // there is no ship to move or fire from until the game has started
+    if (status.isGameStarted() && !status.isGameOver() && !status.isNewShip()
+        && !status.isGameStarting()) {
       // fire bullet if space is pressed
-      if (spaceIsPressed) {
-        // fire only up to 5 bullets per second
-        long currentTime = System.currentTimeMillis();
+      if ((keys & KEY_SPACE) != 0) {
+        // fire only up to 5 bullets per second; a shot that could not be
+        // fired does not start the wait for the next one
         if (status.getLevel() < GameSettings.LEVEL_TO_FASTER_BULLETS) {
           if ((currentTime - lastBulletTime) > 1000 / GameSettings.BULLETS_PER_SECOND) {
-            lastBulletTime = currentTime;
-            gameLogic.fireBullet();
+            if (gameLogic.fireBullet()) {
+              lastBulletTime = currentTime;
+            }
           }
         } else {
           if ((currentTime - lastBulletTime) > 1000 / GameSettings.BULLETS_PER_SECOND_FAST) {
-            lastBulletTime = currentTime;
-            gameLogic.fireBullet();
+            if (gameLogic.fireBullet()) {
+              lastBulletTime = currentTime;
+            }
           }
         }
       }
 
       Ship ship = gameLogic.getShip();
+      WorldBounds bounds = gameLogic.getWorldBounds();
 
-      if (shiftIsPressed) {
+      if ((keys & KEY_SHIFT) != 0) {
         ship.setSpeed(ship.getDefaultSpeed() * 2);
+      } else {
+        ship.setSpeed(ship.getDefaultSpeed());
       }
 
-      if (upIsPressed) {
+      if ((keys & KEY_UP) != 0) {
         moveShipUp(ship);
       }
 
-      if (downIsPressed) {
-        moveShipDown(ship, gameScreen.getHeight());
+      if ((keys & KEY_DOWN) != 0) {
+        moveShipDown(ship, bounds.getHeight());
       }
 
-      if (leftIsPressed) {
+      if ((keys & KEY_LEFT) != 0) {
         moveShipLeft(ship);
       }
 
-      if (rightIsPressed) {
-        moveShipRight(ship, gameScreen.getWidth());
+      if ((keys & KEY_RIGHT) != 0) {
+        moveShipRight(ship, bounds.getWidth());
       }
 
       // if b is pressed... UNLEASH BOMB (maybe)
     }
   }
 
+  /**
+   * Applies the key events queued since the last tick to the key state, in
+   * the order they happened. Called by the simulation thread at the start of
+   * each tick, so the events act on the game as it was when they happened.
+   */
+  public void pollEvents() {
+    while (!queue.isEmpty()) {
+      int key = queue.peekKey();
+      boolean pressed = queue.peekPressed();
+      if (inputTime == 0) {
+        inputTime = queue.peekTime();
+      }
+      queue.remove();
+
+      if (!pressed) {
+        heldKeys &= ~key;
+        continue;
+      }
+      if (key == QUICK_SAVE || key == QUICK_LOAD) {
+        if (key == QUICK_SAVE || quickLoadEnabled) {
+          stateRequest = key;
+        }
+        continue;
+      }
+      GameStatus status = gameLogic.getStatus();
+      if (key == KEY_SPACE && !status.isGameStarted() && !status.isGameOver()
+          && !status.isGameStarting()) {
+        // new game, forget every key held until now
+        heldKeys = 0;
+        tappedKeys = 0;
+        newGameRequested = true;
+      } else {
+        heldKeys |= key;
+        tappedKeys |= key;
+      }
+    }
+  }
+
+  /**
+   * Returns the input state for this tick: the keys held or pressed since the
+   * last tick, and whether a new game was asked for. Together with the game
+   * clock, this is all the input a tick depends on.
+   * 
+   * @return the input state bits
+   */
+  public int getInputState() {
+    return heldKeys | tappedKeys | (newGameRequested ? NEW_GAME : 0);
+  }
+
+  /**
+   * Sets the input state for this tick instead of polling the key events,
+   * e.g. to replay a recorded game.
+   * 
+   * @param inputState
+   *          - the input state bits, as returned by getInputState()
+   */
+  public void setInputState(int inputState) {
+    heldKeys = inputState & ~NEW_GAME;
+    tappedKeys = 0;
+    newGameRequested = (inputState & NEW_GAME) != 0;
+  }
+
+  /**
+   * Writes the input state carried from tick to tick to a buffer: the keys
+   * held and when the last bullet was fired.
+   * 
+   * @param out
+   *          - the buffer to write to
+   */
+  public void saveState(ByteBuffer out) {
+    out.putInt(heldKeys).putLong(lastBulletTime);
+  }
+
+  /**
+   * Restores the input state from a buffer written by saveState().
+   * 
+   * @param in
+   *          - the buffer to read from
+   */
+  public void restoreState(ByteBuffer in) {
+    heldKeys = in.getInt();
+    tappedKeys = 0;
+    newGameRequested = false;
+    lastBulletTime = in.getLong();
+  }
+
+  /**
+   * Returns whether the player asked to save or load the game since the last
+   * call. Called by the simulation thread after each tick.
+   * 
+   * @return QUICK_SAVE, QUICK_LOAD, or 0 if neither was asked for
+   */
+  public int takeStateRequest() {
+    int request = stateRequest;
+    stateRequest = 0;
+    return request;
+  }
+
+  /**
+   * Enables or disables the quick load key, e.g. while the input is recorded,
+   * since a recording can not jump back to a saved game.
+   * 
+   * @param enabled
+   *          - false to ignore the quick load key
+   */
+  public void setQuickLoadEnabled(boolean enabled) {
+    quickLoadEnabled = enabled;
+  }
+
+  /**
+   * Returns the time of the first key event handled since the last call, so
+   * the time until the event shows on screen can be measured. Called by the
+   * simulation thread when it publishes a snapshot.
+   * 
+   * @return the time of the event, from System.nanoTime(), or 0 if there was
+   *         none
+   */
+  public long takeInputTime() {
+    long time = inputTime;
+    inputTime = 0;
+    return time;
+  }
+
   /**
    * Move the ship up
    * 
@@ -101,7 +278,7 @@ public class InputHandler implements KeyListener {
    *          the ship
    */
   private void moveShipDown(Ship ship, int screenHeight) {
-    if (ship.getY() + ship.getSpeed() + ship.height < screenHeight) {
+    if (ship.getY() + ship.getSpeed() + ship.getHeight() < screenHeight) {
       ship.translate(0, ship.getSpeed());
     }
   }
@@ -125,7 +302,7 @@ public class InputHandler implements KeyListener {
    *          the ship
    */
   private void moveShipRight(Ship ship, int screenWidth) {
-    if (ship.getX() + ship.getSpeed() + ship.width < screenWidth) {
+    if (ship.getX() + ship.getSpeed() + ship.getWidth() < screenWidth) {
       ship.translate(ship.getSpeed(), 0);
     }
   }
@@ -134,42 +311,7 @@ public class InputHandler implements KeyListener {
    * Handle a key input event.
    */
   public void keyPressed(KeyEvent e) {
-    switch (e.getKeyCode()) {
-    case KeyEvent.VK_UP:
-      this.upIsPressed = true;
-      break;
-    case KeyEvent.VK_DOWN:
-      this.downIsPressed = true;
-      break;
-    case KeyEvent.VK_LEFT:
-      this.leftIsPressed = true;
-      break;
-    case KeyEvent.VK_RIGHT:
-      this.rightIsPressed = true;
-      break;
-    case KeyEvent.VK_SPACE:
-      GameStatus status = gameLogic.getStatus();
-      if (!status.isGameStarted() && !status.isGameOver() && !status.isGameStarting()) {
-        // new game
-        lastBulletTime = System.currentTimeMillis();
-        leftIsPressed = false;
-        rightIsPressed = false;
-        downIsPressed = false;
-        upIsPressed = false;
-        spaceIsPressed = false;
-
-        gameLogic.newGame();
-      } else {
-        this.spaceIsPressed = true;
-      }
-      break;
-    case KeyEvent.VK_SHIFT:
-      this.shiftIsPressed = true;
-      break;
-    case KeyEvent.VK_ESCAPE:
-      System.exit(1);
-      break;
-    }
+    pressKey(e.getKeyCode());
     e.consume();
   }
 
@@ -177,29 +319,84 @@ public class InputHandler implements KeyListener {
    * Handle a key release event.
    */
   public void keyReleased(KeyEvent e) {
-    switch (e.getKeyCode()) {
+    releaseKey(e.getKeyCode());
+    e.consume();
+  }
+
+  /**
+   * Presses a key. Called for key events, or directly to drive the game
+   * without a keyboard; the key acts on the next tick.
+   * 
+   * @param keyCode
+   *          - the KeyEvent key code of the pressed key
+   */
+  public void pressKey(int keyCode) {
+    if (keyCode == KeyEvent.VK_ESCAPE) {
+      System.exit(1);
+    }
+    queueKey(keyCode, true);
+  }
+
+  /**
+   * Releases a key. Called for key events, or directly to drive the game
+   * without a keyboard; the key is released on the next tick.
+   * 
+   * @param keyCode
+   *          - the KeyEvent key code of the released key
+   */
+  public void releaseKey(int keyCode) {
+    queueKey(keyCode, false);
+  }
+
+  /**
+   * Queues a key event for the next tick, if the game reacts to the key.
+   */
+  private void queueKey(int keyCode, boolean pressed) {
+    int key = toKey(keyCode);
+    if (key != 0 && !queue.offer(key, pressed, System.nanoTime())) {
+      // only when the simulation thread stalls for many ticks
+      droppedEvents++;
+    }
+  }
+
+  /**
+   * Returns the number of key events dropped because the simulation thread
+   * did not take them in time.
+   * 
+   * @return the number of dropped key events
+   */
+  public long getDroppedEvents() {
+    return droppedEvents;
+  }
+
+  /**
+   * Returns the key state bit for a KeyEvent key code.
+   * 
+   * @param keyCode
+   *          - the key code
+   * @return the key's bit, or 0 if the game doesn't react to the key
+   */
+  private static int toKey(int keyCode) {
+    switch (keyCode) {
     case KeyEvent.VK_UP:
-      this.upIsPressed = false;
-      break;
+      return KEY_UP;
     case KeyEvent.VK_DOWN:
-      this.downIsPressed = false;
-      break;
+      return KEY_DOWN;
     case KeyEvent.VK_LEFT:
-      this.leftIsPressed = false;
-      break;
+      return KEY_LEFT;
     case KeyEvent.VK_RIGHT:
-      this.rightIsPressed = false;
-      break;
+      return KEY_RIGHT;
     case KeyEvent.VK_SPACE:
-      this.spaceIsPressed = false;
-      break;
+      return KEY_SPACE;
     case KeyEvent.VK_SHIFT:
-      this.shiftIsPressed = false;
-      Ship ship = gameLogic.getShip();
-      ship.setSpeed(ship.getDefaultSpeed());
-      break;
+      return KEY_SHIFT;
+    case KeyEvent.VK_F5:
+      return QUICK_SAVE;
+    case KeyEvent.VK_F9:
+      return QUICK_LOAD;
+    default:
+      return 0;
     }
-    e.consume();
   }
 
   /**
@@ -0,0 +1,109 @@
+package rbadia.voidspace.main;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded queue of timestamped key events, from the event dispatch thread
+ * to the simulation thread. It is a ring buffer with a single producer and a
+ * single consumer, so neither side ever takes a lock or waits for the other.
+ * Events are taken in the order they were added.
+ */
+public class InputQueue {
+  private final int mask;
+  private final int[] keys;
+  private final boolean[] pressed;
+  private final long[] times;
+
+  // the next slot to write and the next slot to read; each is only advanced
+  // by one side, and published to the other with an ordered write
+  private final AtomicLong tail = new AtomicLong();
+  private final AtomicLong head = new AtomicLong();
+
+  /**
+   * Creates a new, empty queue.
+   *
+   * @param capacity
+   *          - the most events the queue holds, a power of two
+   */
+  public InputQueue(int capacity) {
+    if (Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+    }
+    this.mask = capacity - 1;
+    this.keys = new int[capacity];
+    this.pressed = new boolean[capacity];
+    this.times = new long[capacity];
+  }
+
+  /**
+   * Adds a key event to the queue. Only called by the producer thread.
+   *
+   * @param key
+   *          - the key
+   * @param isPressed
+   *          - true if the key was pressed, false if it was released
+   * @param time
+   *          - when the event happened, from System.nanoTime()
+   * @return false if the queue was full and the event was dropped
+   */
+  public boolean offer(int key, boolean isPressed, long time) {
+    long t = tail.get();
+    if (t - head.get() > mask) {
+      return false;
+    }
+    int slot = (int) t & mask;
+    keys[slot] = key;
+    pressed[slot] = isPressed;
+    times[slot] = time;
+    tail.lazySet(t + 1);
+    return true;
+  }
+
+  /**
+   * Returns whether the queue has an event to take. Only called by the
+   * consumer thread.
+   *
+   * @return true if the queue is empty
+   */
+  public boolean isEmpty() {
+    return head.get() == tail.get();
+  }
+
+  /**
+   * Returns the key of the next event. Only called by the consumer thread,
+   * when the queue is not empty.
+   *
+   * @return the key
+   */
+  public int peekKey() {
+    return keys[(int) head.get() & mask];
+  }
+
+  /**
+   * Returns whether the next event is a press or a release. Only called by
+   * the consumer thread, when the queue is not empty.
+   *
+   * @return true if the key was pressed, false if it was released
+   */
+  public boolean peekPressed() {
+    return pressed[(int) head.get() & mask];
+  }
+
+  /**
+   * Returns the time of the next event. Only called by the consumer thread,
+   * when the queue is not empty.
+   *
+   * @return the time of the event, from System.nanoTime()
+   */
+  public long peekTime() {
+    return times[(int) head.get() & mask];
+  }
+
+  /**
+   * Removes the next event, freeing its slot for the producer. Only called by
+   * the consumer thread, when the queue is not empty.
+   */
+  public void remove() {
+    head.lazySet(head.get() + 1);
+  }
+}
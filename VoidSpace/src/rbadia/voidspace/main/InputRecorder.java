@@ -0,0 +1,223 @@
+package rbadia.voidspace.main;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Records a game's input, tick by tick, into a compact binary file that
+ * InputReplay plays back. Together with the random seed and the game
+ * settings, the input of every tick is all it takes to play the same game
+ * again.
+ *
+ * The file starts with a header: the magic number, the format version, the
+ * seed, the keyframe interval and the gameplay settings. Then come the ticks,
+ * in runs of ticks with the same input: each run is a byte with the input
+ * state bits and a varint with the run's length minus one, so a held key
+ * costs a few bytes however long it is held. The game clock advances one
+ * tick length per tick, so the ticks' times need not be recorded.
+ *
+ * Before every KEYFRAME_TICKS-th tick, and before the first, comes a keyframe
+ * instead: a varint with its length, the number of ticks before it and the
+ * whole game state as written by GameLoop.saveState(). A
+ * replay can start from any keyframe instead of from the first tick. The file
+ * ends with an index of the keyframes, each one's tick and offset in the
+ * file, followed by the index's offset, the number of keyframes and the magic
+ * number again.
+ *
+ * Only the simulation thread records; a shutdown hook may close the file.
+ */
+public class InputRecorder {
+  static final int MAGIC = 0x56535250; // "VSRP"
+  static final int VERSION = 3;
+
+  // ticks between two keyframes, ten seconds of game
+  static final int KEYFRAME_TICKS = 10 * GameSettings.TICKS_PER_SECOND;
+
+  private final DataOutputStream out;
+  private boolean closed;
+
+  // the game state of the next keyframe, and the index of the keyframes
+  private ByteBuffer state = ByteBuffer.allocate(4096);
+  private int keyframeCount;
+  private long[] keyframeTicks = new long[64];
+  private long[] keyframeOffsets = new long[64];
+
+  // the run of ticks not written yet
+  private int runState;
+  private long runLength;
+
+  /**
+   * Creates a new recorder writing to the given file, and writes the header.
+   *
+   * @param fileName
+   *          - the file to write
+   * @param seed
+   *          - the seed of the game's random number service
+   * @throws IOException
+   *           if the file can not be written
+   */
+  public InputRecorder(String fileName, long seed) throws IOException {
+    this(new FileOutputStream(fileName), seed);
+  }
+
+  /**
+   * Creates a new recorder writing to the given stream, and writes the header.
+   *
+   * @param stream
+   *          - the stream to write
+   * @param seed
+   *          - the seed of the game's random number service
+   * @throws IOException
+   *           if the stream can not be written
+   */
+  public InputRecorder(OutputStream stream, long seed) throws IOException {
+    out = new DataOutputStream(new BufferedOutputStream(stream));
+    out.writeInt(MAGIC);
+    out.writeByte(VERSION);
+    out.writeLong(seed);
+    writeVarint(out, KEYFRAME_TICKS);
+    long[] settings = GameSettings.getGameplaySettings();
+    writeVarint(out, settings.length);
+    for (int s = 0; s < settings.length; s++) {
+      writeVarint(out, zigzag(settings[s]));
+    }
+  }
+
+  /**
+   * Records the input of a tick. Ticks must be recorded one by one from the
+   * game's first tick.
+   *
+   * @param inputState
+   *          - the input handler's state during the tick
+   */
+  public synchronized void record(int inputState) {
+    if (closed) {
+      return;
+    }
+    if (runLength > 0 && inputState == runState) {
+      runLength++;
+      return;
+    }
+    try {
+      writeRun();
+    } catch (IOException e) {
+      e.printStackTrace();
+      closed = true;
+      return;
+    }
+    runState = inputState;
+    runLength = 1;
+  }
+
+  /**
+   * Indicates if a keyframe should be recorded before the next tick.
+   *
+   * @param ticks
+   *          - the number of ticks run so far
+   * @return true if a keyframe is due
+   */
+  public boolean isKeyframeDue(long ticks) {
+    return ticks % KEYFRAME_TICKS == 0;
+  }
+
+  /**
+   * Records a keyframe with the whole game state, between two ticks.
+   *
+   * @param ticks
+   *          - the number of ticks run so far
+   * @param gameLoop
+   *          - the game loop owning the game state
+   */
+  public synchronized void recordKeyframe(long ticks, GameLoop gameLoop) {
+    if (closed) {
+      return;
+    }
+    while (true) {
+      try {
+        state.clear();
+        state.putLong(ticks);
+        gameLoop.saveState(state);
+        break;
+      } catch (BufferOverflowException e) {
+        state = ByteBuffer.allocate(state.capacity() * 2);
+      }
+    }
+
+    try {
+      writeRun();
+      if (keyframeCount == keyframeTicks.length) {
+        keyframeTicks = Arrays.copyOf(keyframeTicks, keyframeCount * 2);
+        keyframeOffsets = Arrays.copyOf(keyframeOffsets, keyframeCount * 2);
+      }
+      keyframeTicks[keyframeCount] = ticks;
+      keyframeOffsets[keyframeCount] = out.size();
+      keyframeCount++;
+      writeVarint(out, state.position());
+      out.write(state.array(), 0, state.position());
+    } catch (IOException e) {
+      e.printStackTrace();
+      closed = true;
+    }
+  }
+
+  /**
+   * Writes the last run of ticks and the keyframe index, and closes the file.
+   */
+  public synchronized void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      writeRun();
+      long indexOffset = out.size();
+      for (int k = 0; k < keyframeCount; k++) {
+        out.writeLong(keyframeTicks[k]);
+        out.writeLong(keyframeOffsets[k]);
+      }
+      out.writeLong(indexOffset);
+      out.writeInt(keyframeCount);
+      out.writeInt(MAGIC);
+      out.close();
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Writes the pending run of ticks, if any.
+   */
+  private void writeRun() throws IOException {
+    if (runLength == 0) {
+      return;
+    }
+    out.writeByte(runState);
+    writeVarint(out, runLength - 1);
+    runLength = 0;
+  }
+
+  /**
+   * Maps a signed value to an unsigned one, small either way for values
+   * close to zero.
+   */
+  static long zigzag(long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  /**
+   * Writes an unsigned value in as few bytes as it needs, seven bits a byte.
+   */
+  static void writeVarint(DataOutputStream out, long value) throws IOException {
+    while ((value & ~0x7fL) != 0) {
+      out.writeByte((int) (value & 0x7f) | 0x80);
+      value >>>= 7;
+    }
+    out.writeByte((int) value);
+  }
+}
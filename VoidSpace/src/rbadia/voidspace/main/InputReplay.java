@@ -0,0 +1,297 @@
+package rbadia.voidspace.main;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Reads back the input recorded by an InputRecorder, one tick at a time. The
+ * recording is mapped into memory rather than streamed, so the reader can
+ * jump to any keyframe in it: seeking to a tick restores the game from the
+ * last keyframe before it and only plays the ticks in between.
+ */
+public class InputReplay {
+  // the index offset, keyframe count and magic number at the end of the file
+  private static final int TRAILER_SIZE = 16;
+
+  private final ByteBuffer buffer;
+  private final long seed;
+  private final int keyframeTicks;
+
+  // where the ticks end, either at the index or at the end of the file
+  private final int end;
+
+  // the tick and the file offset of every keyframe
+  private long[] indexTicks;
+  private int[] indexOffsets;
+
+  // the tick whose keyframe was restored, so reading must not skip it
+  private long restoredTick = -1;
+
+  // the run of ticks being read
+  private int runState;
+  private long runLeft;
+
+  // the tick read last
+  private long tick;
+  private int inputState;
+
+  /**
+   * Maps a recording into memory and reads its header and keyframe index.
+   *
+   * @param fileName
+   *          - the recorded file
+   * @throws IOException
+   *           if the file can not be read, is not a recording, or was
+   *           recorded with other game settings
+   */
+  public InputReplay(String fileName) throws IOException {
+    this(map(fileName));
+  }
+
+  /**
+   * Reads the header and keyframe index of a recording already in memory.
+   *
+   * @param buffer
+   *          - the whole recording, from its position to its limit
+   * @throws IOException
+   *           if the buffer is not a recording, or was recorded with other
+   *           game settings
+   */
+  public InputReplay(ByteBuffer buffer) throws IOException {
+    this.buffer = buffer.slice();
+    try {
+      if (this.buffer.getInt() != InputRecorder.MAGIC) {
+        throw new IOException("Not a Void Space recording");
+      }
+      int version = this.buffer.get() & 0xff;
+      if (version != InputRecorder.VERSION) {
+        throw new IOException("Unsupported recording version " + version);
+      }
+      seed = this.buffer.getLong();
+      keyframeTicks = (int) readVarint(this.buffer);
+
+      long[] settings = new long[(int) readVarint(this.buffer)];
+      for (int s = 0; s < settings.length; s++) {
+        settings[s] = unzigzag(readVarint(this.buffer));
+      }
+      if (!Arrays.equals(settings, GameSettings.getGameplaySettings())) {
+        throw new IOException("Recorded with different game settings");
+      }
+    } catch (BufferUnderflowException e) {
+      throw new IOException("Recording too short");
+    }
+
+    int limit = this.buffer.limit();
+    if (limit - this.buffer.position() >= TRAILER_SIZE
+        && this.buffer.getInt(limit - 4) == InputRecorder.MAGIC) {
+      end = (int) this.buffer.getLong(limit - TRAILER_SIZE);
+      int count = this.buffer.getInt(limit - 8);
+      indexTicks = new long[count];
+      indexOffsets = new int[count];
+      for (int k = 0; k < count; k++) {
+        indexTicks[k] = this.buffer.getLong(end + k * 16);
+        indexOffsets[k] = (int) this.buffer.getLong(end + k * 16 + 8);
+      }
+    } else {
+      // the recording was cut short, e.g. by a crash; find the keyframes
+      end = limit;
+      scanKeyframes();
+    }
+  }
+
+  /**
+   * Maps a whole file into memory, read only.
+   */
+  private static ByteBuffer map(String fileName) throws IOException {
+    RandomAccessFile file = new RandomAccessFile(fileName, "r");
+    try {
+      return file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+    } finally {
+      // the mapping stays valid after the file is closed
+      file.close();
+    }
+  }
+
+  /**
+   * Builds the keyframe index of a recording without one, by skipping
+   * through its runs of ticks.
+   */
+  private void scanKeyframes() {
+    int count = 0;
+    indexTicks = new long[64];
+    indexOffsets = new int[64];
+
+    ByteBuffer scan = buffer.duplicate();
+    long scanTick = 0;
+    try {
+      while (scan.position() < end) {
+        if (scanTick % keyframeTicks == 0) {
+          int offset = scan.position();
+          int length = (int) readVarint(scan);
+          if (count == indexTicks.length) {
+            indexTicks = Arrays.copyOf(indexTicks, count * 2);
+            indexOffsets = Arrays.copyOf(indexOffsets, count * 2);
+          }
+          indexTicks[count] = scanTick;
+          indexOffsets[count] = offset;
+          count++;
+          scan.position(scan.position() + length);
+          if (scan.position() >= end) {
+            break;
+          }
+        }
+        // skip the run's input state; runs end at keyframes, so the next run
+        // starts at a keyframe or later
+        scan.get();
+        scanTick += readVarint(scan) + 1;
+      }
+    } catch (RuntimeException e) {
+      // the last keyframe or run was cut short
+    }
+    indexTicks = Arrays.copyOf(indexTicks, count);
+    indexOffsets = Arrays.copyOf(indexOffsets, count);
+  }
+
+  /**
+   * Returns the seed of the recorded game's random number service.
+   *
+   * @return the seed
+   */
+  public long getSeed() {
+    return seed;
+  }
+
+  /**
+   * Returns the number of keyframes in the recording.
+   *
+   * @return the number of keyframes
+   */
+  public int getKeyframeCount() {
+    return indexTicks.length;
+  }
+
+  /**
+   * Reads the next tick.
+   *
+   * @return false if there are no more ticks
+   */
+  public boolean next() {
+    if (runLeft == 0) {
+      try {
+        if (tick % keyframeTicks == 0 && tick != restoredTick && buffer.position() < end) {
+          // the state is only needed when seeking
+          int length = (int) readVarint(buffer);
+          buffer.position(buffer.position() + length);
+        }
+        if (buffer.position() >= end) {
+          return false;
+        }
+        runState = buffer.get() & 0xff;
+        runLeft = readVarint(buffer) + 1;
+      } catch (RuntimeException e) {
+        // the recording was cut short, e.g. by a crash
+        buffer.position(end);
+        return false;
+      }
+    }
+    runLeft--;
+    tick++;
+    inputState = runState;
+    return true;
+  }
+
+  /**
+   * Brings a game to the state it was in after the given tick of the
+   * recording: restores the last keyframe at or before the tick, then replays
+   * the ticks from there. The game must have been created with the
+   * recording's seed; reading continues with the tick after.
+   *
+   * @param target
+   *          - the number of the tick to seek to, counting from 1
+   * @param gameLoop
+   *          - the game loop to bring to the tick
+   * @return false if the recording ends before the tick
+   * @throws IOException
+   *           if the recording has no keyframe at or before the tick
+   */
+  public boolean seek(long target, GameLoop gameLoop) throws IOException {
+    int k = Arrays.binarySearch(indexTicks, target);
+    if (k < 0) {
+      k = -k - 2;
+    }
+    if (k < 0) {
+      throw new IOException("No keyframe before tick " + target);
+    }
+
+    // a keyframe is the number of ticks and the game state between two ticks
+    buffer.position(indexOffsets[k]);
+    int length = (int) readVarint(buffer);
+    int stateEnd = buffer.position() + length;
+    tick = buffer.getLong();
+    gameLoop.restoreState(buffer);
+    buffer.position(stateEnd);
+    restoredTick = tick;
+    runLeft = 0;
+
+    while (tick < target) {
+      if (!next()) {
+        return false;
+      }
+      gameLoop.replayTick(inputState);
+    }
+    return true;
+  }
+
+  /**
+   * Returns the number of the tick read last, counting from 1.
+   *
+   * @return the tick number
+   */
+  public long getTick() {
+    return tick;
+  }
+
+  /**
+   * Returns the input handler's state during the tick read last.
+   *
+   * @return the input state
+   */
+  public int getInputState() {
+    return inputState;
+  }
+
+  /**
+   * Closes the recording. The mapping is released once the reader is no
+   * longer referenced.
+   */
+  public void close() {
+    runLeft = 0;
+    buffer.position(end);
+  }
+
+  /**
+   * Reverses InputRecorder.zigzag().
+   */
+  static long unzigzag(long value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  /**
+   * Reads an unsigned value written by InputRecorder.writeVarint().
+   */
+  static long readVarint(ByteBuffer in) {
+    long value = 0;
+    int shift = 0;
+    int b;
+    do {
+      b = in.get() & 0xff;
+      value |= (long) (b & 0x7f) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    return value;
+  }
+}
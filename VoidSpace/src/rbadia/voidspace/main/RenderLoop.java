@@ -0,0 +1,111 @@
+package rbadia.voidspace.main;
+
+/**
+ * Implements the render loop. Runs on its own thread and draws the latest
+ * snapshot published by the game loop, so a slow frame never delays a
+ * simulation tick.
+ */
+public class RenderLoop implements Runnable {
+  private static final long NANOS_PER_SECOND = 1000000000L;
+  private static final long FRAME_NANOS = NANOS_PER_SECOND / GameSettings.MAX_FRAMES_PER_SECOND;
+
+  private GameScreen gameScreen;
+  private GameLoop gameLoop;
+
+  // measured rate, updated once per second
+  private volatile double framesPerSecond;
+
+  // measured time from a key event to the first frame showing it, averaged
+  // over a second
+  private volatile double inputLatencyMillis;
+
+  /**
+   * Creates a new render loop.
+   * 
+   * @param gameScreen
+   *          the game screen to draw to
+   * @param gameLoop
+   *          the game loop publishing the snapshots to draw
+   */
+  public RenderLoop(GameScreen gameScreen, GameLoop gameLoop) {
+    this.gameScreen = gameScreen;
+    this.gameLoop = gameLoop;
+  }
+
+  /**
+   * Implements the run interface method. Should be called by the running
+   * thread.
+   */
+  public void run() {
+    long rateStartTime = System.nanoTime();
+    int frames = 0;
+    long latencySum = 0;
+    int latencyCount = 0;
+    GameSnapshot measured = null;
+
+    while (true) {
+      long frameStartTime = System.nanoTime();
+
+      GameSnapshot snapshot = gameLoop.getSnapshot();
+      if (snapshot != null) {
+        // interpolate from the last tick towards the next one
+        float alpha = (float) (frameStartTime - snapshot.getTickTime()) / GameLoop.TICK_NANOS;
+        if (alpha > 1)
+          alpha = 1;
+
+        // update the game graphics and show them on screen
+        gameScreen.drawScreen(snapshot, alpha);
+        frames++;
+
+        // the first frame of a snapshot is the first to show its input
+        if (snapshot != measured && snapshot.getInputTime() != 0) {
+          latencySum += System.nanoTime() - snapshot.getInputTime();
+          latencyCount++;
+        }
+        measured = snapshot;
+      }
+
+      // measure the frame rate
+      long elapsed = frameStartTime - rateStartTime;
+      if (elapsed >= NANOS_PER_SECOND) {
+        framesPerSecond = (double) frames * NANOS_PER_SECOND / elapsed;
+        rateStartTime = frameStartTime;
+        frames = 0;
+        if (latencyCount > 0) {
+          inputLatencyMillis = latencySum / 1000000.0 / latencyCount;
+          latencySum = 0;
+          latencyCount = 0;
+        }
+      }
+
+      // sleep/wait until the next frame is due
+      long sleepNanos = FRAME_NANOS - (System.nanoTime() - frameStartTime);
+      if (sleepNanos > 0) {
+        try {
+          Thread.sleep(sleepNanos / 1000000, (int) (sleepNanos % 1000000));
+        } catch (Exception e) {
+          e.printStackTrace();
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the number of frames drawn during the last second.
+   * 
+   * @return the measured frame rate
+   */
+  public double getFramesPerSecond() {
+    return framesPerSecond;
+  }
+
+  /**
+   * Returns the average time from a key event to the first frame drawn after
+   * the game handled it, over the last second with any key events.
+   * 
+   * @return the measured input latency, in milliseconds
+   */
+  public double getInputLatencyMillis() {
+    return inputLatencyMillis;
+  }
+}
@@ -0,0 +1,56 @@
+package rbadia.voidspace.main;
+
+import java.io.IOException;
+
+/**
+ * Replays a recorded game without a display, as fast as possible. The game is
+ * played with the recorded seed and input, so it ends exactly as
+ * the recorded game did. The replay can start at any tick, from the nearest
+ * keyframe before it.
+ * 
+ * Should be run with -Djava.awt.headless=true.
+ */
+public class ReplayGame {
+
+  /**
+   * Replays a recording and prints the tick rate and the game's results.
+   * 
+   * @param args
+   *          - the recorded file, and optionally the tick to start at
+   * @throws IOException
+   *           if the recording can not be read
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1) {
+      System.err.println("Usage: ReplayGame <recording> [start tick]");
+      System.exit(1);
+    }
+
+    InputReplay replay = new InputReplay(args[0]);
+    HeadlessGame game = new HeadlessGame(replay.getSeed());
+    try {
+      if (args.length > 1) {
+        long seekTick = Long.parseLong(args[1]);
+        long seekStart = System.nanoTime();
+        if (!replay.seek(seekTick, game.getGameLoop())) {
+          System.err.println("The recording ends before tick " + seekTick);
+          System.exit(1);
+        }
+        System.out.printf("seek to tick %d: %.2f ms (%d keyframes)%n", seekTick,
+            (System.nanoTime() - seekStart) / 1e6, replay.getKeyframeCount());
+      }
+
+      long startTick = replay.getTick();
+      long startTime = System.nanoTime();
+      while (replay.next()) {
+        game.replayTick(replay.getInputState());
+      }
+      long elapsed = System.nanoTime() - startTime;
+
+      HeadlessGame.printResults(game.getGameLogic(), replay.getSeed(),
+          replay.getTick() - startTick, elapsed);
+    } finally {
+      replay.close();
+    }
+  }
+}
@@ -0,0 +1,173 @@
+package rbadia.voidspace.main;
+
+/**
+ * The game flags and status variables as they were at the end of a
+ * simulation tick. Published by GameStatus for the threads that don't own
+ * it, and never changed afterwards, so it can be read without any locking.
+ */
+public final class StatusSnapshot {
+  // game flags
+  private final boolean gameStarted;
+  private final boolean gameStarting;
+  private final boolean gameOver;
+  private final boolean newShip;
+
+  // status variables
+  private final long asteroidsDestroyed;
+  private final long enemyShipsDestroyed;
+  private final long points;
+  private final int shipsLeft;
+  private final long bulletsFired;
+  private final long bulletsRemaining;
+  private final int level;
+
+  /**
+   * Creates a new snapshot of the given game status.
+   *
+   * @param status
+   *          - the game status to copy
+   */
+  StatusSnapshot(GameStatus status) {
+    this.gameStarted = status.isGameStarted();
+    this.gameStarting = status.isGameStarting();
+    this.gameOver = status.isGameOver();
+    this.newShip = status.isNewShip();
+
+    this.asteroidsDestroyed = status.getAsteroidsDestroyed();
+    this.enemyShipsDestroyed = status.getEnemyShipsDestroyed();
+    this.points = status.getPoints();
+    this.shipsLeft = status.getShipsLeft();
+    this.bulletsFired = status.getBulletsFired();
+    this.bulletsRemaining = status.getBulletsRemaining();
+    this.level = status.getLevel();
+  }
+
+  /**
+   * Indicates if the snapshot still matches the given game status.
+   *
+   * @param status
+   *          - the game status to compare with
+   * @return true if nothing changed since the snapshot was taken
+   */
+  boolean matches(GameStatus status) {
+    return gameStarted == status.isGameStarted() && gameStarting == status.isGameStarting()
+        && gameOver == status.isGameOver() && newShip == status.isNewShip()
+        && asteroidsDestroyed == status.getAsteroidsDestroyed()
+        && enemyShipsDestroyed == status.getEnemyShipsDestroyed()
+        && points == status.getPoints() && shipsLeft == status.getShipsLeft()
+        && bulletsFired == status.getBulletsFired()
+        && bulletsRemaining == status.getBulletsRemaining() && level == status.getLevel();
+  }
+
+  /**
+   * Indicates if the game had already started.
+   *
+   * @return if the game had already started
+   */
+  public boolean isGameStarted() {
+    return gameStarted;
+  }
+
+  /**
+   * Indicates if the "Get Ready" message was displaying.
+   *
+   * @return if the game was starting
+   */
+  public boolean isGameStarting() {
+    return gameStarting;
+  }
+
+  /**
+   * Indicates if the "Game Over" message was displaying.
+   *
+   * @return if the game was over
+   */
+  public boolean isGameOver() {
+    return gameOver;
+  }
+
+  /**
+   * Indicates if a new ship was about to be created.
+   *
+   * @return if a new ship was about to be created
+   */
+  public boolean isNewShip() {
+    return newShip;
+  }
+
+  /**
+   * Returns the number of asteroids destroyed.
+   *
+   * @return the number of asteroids destroyed
+   */
+  public long getAsteroidsDestroyed() {
+    return asteroidsDestroyed;
+  }
+
+  /**
+   * Returns the number of enemy ships destroyed.
+   *
+   * @return the number of enemy ships destroyed
+   */
+  public long getEnemyShipsDestroyed() {
+    return enemyShipsDestroyed;
+  }
+
+  /**
+   * Returns the number of points the player had.
+   *
+   * @return the number of points
+   */
+  public long getPoints() {
+    return points;
+  }
+
+  /**
+   * Returns the number of ships left.
+   *
+   * @return the number of ships left
+   */
+  public int getShipsLeft() {
+    return shipsLeft;
+  }
+
+  /**
+   * Returns the number of bullets fired.
+   *
+   * @return the number of bullets fired
+   */
+  public long getBulletsFired() {
+    return bulletsFired;
+  }
+
+  /**
+   * Returns the number of bullets remaining.
+   *
+   * @return the number of bullets remaining
+   */
+  public long getBulletsRemaining() {
+    return bulletsRemaining;
+  }
+
+  /**
+   * Returns the level the player was in.
+   *
+   * @return the level
+   */
+  public int getLevel() {
+    return level;
+  }
+
+  /**
+   * Returns the hit/miss ratio.
+   *
+   * @return the hit/miss ratio
+   */
+  public float getHitMissRatio() {
+    if (bulletsFired > 0) {
+      return ((float) (asteroidsDestroyed + enemyShipsDestroyed) / (float) bulletsFired) * 100;
+    } else {
+      return 0.0F;
+    }
+  }
+}
@@ -1,7 +1,12 @@
 package rbadia.voidspace.main;
 
+import java.io.IOException;
+
 import javax.swing.JFrame;
 
+import rbadia.voidspace.model.GameRandom;
+import rbadia.voidspace.sounds.SoundManager;
+
 /**
  * Main game class. Starts the game.
  */
@@ -9,8 +14,12 @@ public class VoidSpaceMain {
 
   /**
    * @param args
+   *          - optionally "-record" and a file to record the game's input to,
+   *          to be replayed with ReplayGame
+   * @throws IOException
+   *           if the recording can not be written
    */
-  public static void main(String[] args) {
+  public static void main(String[] args) throws IOException {
     // init main frame
     MainFrame frame = new MainFrame();
     frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -18,11 +27,14 @@ public class VoidSpaceMain {
     // get game screen
     GameScreen gameScreen = frame.getGameScreen();
 
-    // init game logic handler
-    GameLogic gameLogic = new GameLogic(gameScreen);
+    // init random number service
+    GameRandom random = new GameRandom(System.nanoTime());
+    gameScreen.setStarfieldRandom(random.starfield());
 
-    // pass some variables to game screen
-    gameScreen.setGameLogic(gameLogic);
+    // init game logic handler
+    GameLogic gameLogic = new GameLogic(gameScreen, new SoundManager(), new GameClock(),
+        random);
+    gameLogic.setCollisionMasks(gameScreen.getGraphicsMan());
 
     // init input handler
     InputHandler inputHandler = new InputHandler(gameLogic);
@@ -32,7 +44,25 @@ public class VoidSpaceMain {
     frame.setVisible(true);
 
     // init main game loop
-    new Thread(new GameLoop(gameScreen, gameLogic, inputHandler)).start();
+    GameLoop gameLoop = new GameLoop(gameLogic, inputHandler);
+    gameScreen.setGameLoop(gameLoop);
+
+    // record the input, closing the recording when the game exits
+    if (args.length > 1 && args[0].equals("-record")) {
+      final InputRecorder recorder = new InputRecorder(args[1], random.getSeed());
+      gameLoop.setRecorder(recorder);
+      Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+        public void run() {
+          recorder.close();
+        }
+      }));
+    }
+    new Thread(gameLoop, "Simulation").start();
+
+    // init render loop, drawing the game loop's snapshots on its own thread
+    RenderLoop renderLoop = new RenderLoop(gameScreen, gameLoop);
+    gameScreen.setRenderLoop(renderLoop);
+    new Thread(renderLoop, "Render").start();
   }
 
 }
@@ -1,55 +1,36 @@
 package rbadia.voidspace.model;
 
-import java.awt.Rectangle;
-import java.util.Random;
-
-import rbadia.voidspace.main.GameScreen;
-
 /**
  * This class represents an asteroid.
  * 
  * @author Samuel Rodriguez Martinez
  *
  */
-public class Asteroid extends Rectangle {
-  private static final long serialVersionUID = 1L;
-
+public class Asteroid extends Entity {
   public static final int DEFAULT_SPEED = 4;
 
-  private int asteroidWidth = 32;
-  private int asteroidHeight = 32;
-  private int speed = DEFAULT_SPEED;
-  private int horizontalSpeed = DEFAULT_SPEED;
-  private int horizontalLocation;
-  private long lastAsteroidTime = 0;
-  private boolean isNew = false;
-  private int randomMultiplier = -1;
-
-  private Random rand = new Random();
+  private static final int ASTEROID_WIDTH = 32;
+  private static final int ASTEROID_HEIGHT = 32;
 
   /**
    * Crates a new asteroid at a random x location at the top of the screen
    * 
-   * @param screen
-   *          the game screen
-   */
-  public Asteroid(GameScreen screen) {
-    this.setLocation(rand.nextInt(screen.getWidth() - asteroidWidth), 0);
-    this.setSize(asteroidWidth, asteroidHeight);
-    this.horizontalLocation = rand.nextInt(screen.getWidth() - asteroidWidth);
-  }
-
-  /**
-   * This class sets the location of the asteroid based on given coordinates
-   * 
-   * @param x
-   *          - the x coordinate of the asteroid
-   * @param y
-   *          - the y coordinate of the asteroid
+   * @param store
+   *          the store the asteroid is added to
+   * @param bounds
+   *          the bounds of the game world
+   * @param random
+   *          the game's random number service
    */
-  public void setLocation(int x, int y) {
-    super.setLocation(x, y);
-    this.horizontalLocation = x;
+  public Asteroid(EntityStore<? extends Asteroid> store, WorldBounds bounds, GameRandom random) {
+    super(store);
+    this.setLocation(random.spawn().nextInt(bounds.getWidth() - ASTEROID_WIDTH), 0);
+    this.setSize(ASTEROID_WIDTH, ASTEROID_HEIGHT);
+    this.setSpeed(DEFAULT_SPEED);
+    this.setHorizontalSpeed(DEFAULT_SPEED);
+    store.setHorizontalLocation(index,
+        random.spawn().nextInt(bounds.getWidth() - ASTEROID_WIDTH));
+    store.setRandomMultiplier(index, random.movement().nextInt());
   }
 
   /**
@@ -58,7 +39,7 @@ public class Asteroid extends Rectangle {
    * @return the asteroid's image width
    */
   public int getAsteroidWidth() {
-    return asteroidWidth;
+    return ASTEROID_WIDTH;
   }
 
   /**
@@ -67,7 +48,7 @@ public class Asteroid extends Rectangle {
    * @return the asteroid's image height
    */
   public int getAsteroidHeight() {
-    return asteroidHeight;
+    return ASTEROID_HEIGHT;
   }
 
   /**
@@ -76,7 +57,7 @@ public class Asteroid extends Rectangle {
    * @return the current asteroid speed
    */
   public int getSpeed() {
-    return speed;
+    return store.getSpeed(index);
   }
 
   /**
@@ -86,7 +67,7 @@ public class Asteroid extends Rectangle {
    *          the speed to set
    */
   public void setSpeed(int speed) {
-    this.speed = speed;
+    store.setSpeed(index, speed);
   }
 
   /**
@@ -104,7 +85,7 @@ public class Asteroid extends Rectangle {
    * @return the asteroid's horizontal location, the x coordinate
    */
   public int getHorizontalLocation() {
-    return horizontalLocation;
+    return store.getHorizontalLocation(index);
   }
 
   /**
@@ -114,7 +95,7 @@ public class Asteroid extends Rectangle {
    *          - the asteroids horizontal speed
    */
   public void setHorizontalSpeed(int speed) {
-    this.horizontalSpeed = speed;
+    store.setHorizontalSpeed(index, speed);
   }
 
   /**
@@ -123,7 +104,7 @@ public class Asteroid extends Rectangle {
    * @return the asteroid's horizontal speed
    */
   public int getHorizontalSpeed() {
-    return this.horizontalSpeed;
+    return store.getHorizontalSpeed(index);
   }
 
   /**
@@ -133,7 +114,7 @@ public class Asteroid extends Rectangle {
    *          - the asteroid's last time
    */
   public void setLastAsteroidTime(long time) {
-    this.lastAsteroidTime = time;
+    store.setLastTime(index, time);
   }
 
   /**
@@ -142,7 +123,7 @@ public class Asteroid extends Rectangle {
    * @return the asteroid's last time
    */
   public long getLastAsteroidTime() {
-    return this.lastAsteroidTime;
+    return store.getLastTime(index);
   }
 
   /**
@@ -151,7 +132,7 @@ public class Asteroid extends Rectangle {
    * @return true if the asteroid is new, false otherwise.
    */
   public boolean isNew() {
-    return isNew;
+    return store.isNew(index);
   }
 
   /**
@@ -161,18 +142,15 @@ public class Asteroid extends Rectangle {
    *          - should be true if the asteroid is new, false otherwise.
    */
   public void isNew(boolean status) {
-    isNew = status;
+    store.setNew(index, status);
   }
 
   /**
-   * Generates and returns a random movement speed multiplier.
+   * Returns the asteroid's random movement speed multiplier.
    * 
    * @return a random movement speed multiplier.
    */
   public int getRandomMovementMultiplier() {
-    if (randomMultiplier == -1)
-      randomMultiplier = rand.nextInt();
-
-    return randomMultiplier;
+    return store.getRandomMultiplier(index);
   }
 }
@@ -1,25 +1,34 @@
 package rbadia.voidspace.model;
 
-import java.awt.Rectangle;
-
 /**
  * Represents a bullet fired by a ship.
  */
-public class Bullet extends Rectangle {
-  private static final long serialVersionUID = 1L;
+public class Bullet extends Entity {
+  private static final int BULLET_WIDTH = 8;
+  private static final int BULLET_HEIGHT = 8;
+  private static final int BULLET_SPEED = 12;
 
-  private int bulletWidth = 8;
-  private int bulletHeight = 8;
-  private int speed = 12;
+  /**
+   * Creates a new bullet, to be fired later
+   * 
+   * @param store
+   *          the store the bullet is added to
+   */
+  public Bullet(EntityStore<Bullet> store) {
+    super(store);
+  }
 
   /**
-   * Creates a new bullet above the ship, centered on it
+   * Fires the bullet from above the ship, centered on it
    * 
    * @param ship
+   *          the ship firing the bullet
    */
-  public Bullet(Ship ship) {
-    this.setLocation(ship.x + ship.width / 2 - bulletWidth / 2, ship.y - bulletHeight);
-    this.setSize(bulletWidth, bulletHeight);
+  public void fireFrom(Ship ship) {
+    this.setLocation(ship.getX() + ship.getWidth() / 2 - BULLET_WIDTH / 2,
+        ship.getY() - BULLET_HEIGHT);
+    this.setSize(BULLET_WIDTH, BULLET_HEIGHT);
+    this.setSpeed(BULLET_SPEED);
   }
 
   /**
@@ -28,7 +37,7 @@ public class Bullet extends Rectangle {
    * @return the bullet's speed.
    */
   public int getSpeed() {
-    return speed;
+    return store.getSpeed(index);
   }
 
   /**
@@ -38,6 +47,6 @@ public class Bullet extends Rectangle {
    *          the speed to set
    */
   public void setSpeed(int speed) {
-    this.speed = speed;
+    store.setSpeed(index, speed);
   }
 }
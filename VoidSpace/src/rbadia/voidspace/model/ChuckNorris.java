@@ -1,7 +1,5 @@
 package rbadia.voidspace.model;
 
-import rbadia.voidspace.main.GameScreen;
-
 /**
  * This class represents a chuck norris
  * 
@@ -10,22 +8,25 @@ import rbadia.voidspace.main.GameScreen;
  */
 public class ChuckNorris extends Asteroid {
 
-  private int chuckNorrisWidth = 48;
-  private int chuckNorrisHeight = 48;
-  private int chuckNorrisSpeed = 2;
+  private static final int CHUCK_NORRIS_WIDTH = 48;
+  private static final int CHUCK_NORRIS_HEIGHT = 48;
+  private static final int CHUCK_NORRIS_SPEED = 2;
 
   /**
    * Construct a chuck norris on the screen
    * 
-   * @param screen
+   * @param store
+   *          the store the chuck norris is added to
+   * @param bounds
+   *          the bounds of the game world
+   * @param random
+   *          the game's random number service
    */
-  public ChuckNorris(GameScreen screen) {
-    super(screen);
+  public ChuckNorris(EntityStore<ChuckNorris> store, WorldBounds bounds, GameRandom random) {
+    super(store, bounds, random);
 
-    super.setSize(chuckNorrisWidth, chuckNorrisHeight);
-    super.setSpeed(chuckNorrisSpeed);
+    super.setSize(CHUCK_NORRIS_WIDTH, CHUCK_NORRIS_HEIGHT);
+    super.setSpeed(CHUCK_NORRIS_SPEED);
   }
 
-  private static final long serialVersionUID = 1L;
-
 }
@@ -0,0 +1,233 @@
+package rbadia.voidspace.model;
+
+import java.util.Arrays;
+
+/**
+ * A uniform grid over the playfield, used to find which entities are close to
+ * each other without checking every pair of them. The playfield is split in
+ * square cells, and every entity is listed in each cell touched by the box
+ * around where it was at the start of the tick and where it is now, so only
+ * entities listed in the same cell can overlap, even while moving. The cell
+ * size is rounded up to a power of two, so finding a cell is a shift.
+ *
+ * The grid lists the entities of several stores at once. Within a cell, the
+ * entities of each store come together, in the order the stores were given,
+ * and in increasing index order.
+ *
+ * The grid is built from the locations in the stores and is not updated
+ * when the entities move; it should be built again once per tick, after
+ * everything has moved. Entities outside the playfield are listed in the
+ * nearest border cells.
+ */
+public class CollisionGrid {
+  // an entry packs the number of the store in the upper bits and the index
+  // of the entity in the lower ones
+  private static final int INDEX_BITS = 24;
+  private static final int INDEX_MASK = (1 << INDEX_BITS) - 1;
+
+  private final int cellShift;
+  private final int columns;
+  private final int rows;
+
+  // the entries in cell c are entries[cellStart[c]] to entries[cellStart[c + 1] - 1]
+  private final int[] cellStart;
+  private int[] entries;
+
+  // the cells each entity touches, found while counting and reused to list
+  // it: the first cell, or -1 if it is left out, and how many more columns
+  // (upper half) and rows (lower half) it touches
+  private int[] firstCells = new int[64];
+  private int[] extents = new int[64];
+
+  /**
+   * Creates a new, empty grid.
+   *
+   * @param width
+   *          - the width of the playfield
+   * @param height
+   *          - the height of the playfield
+   * @param cellSize
+   *          - the width and height of each cell, about the size of the
+   *          largest entity
+   */
+  public CollisionGrid(int width, int height, int cellSize) {
+    this.cellShift = 32 - Integer.numberOfLeadingZeros(Math.max(cellSize, 1) - 1);
+    this.columns = Math.max(((width - 1) >> cellShift) + 1, 1);
+    this.rows = Math.max(((height - 1) >> cellShift) + 1, 1);
+    this.cellStart = new int[columns * rows + 1];
+    this.entries = new int[64];
+  }
+
+  /**
+   * Lists the entities of the given stores in the cells they touch. Entities
+   * marked to be removed are left out.
+   *
+   * @param stores
+   *          - the stores to build the grid from
+   */
+  public void build(EntityStore<?>[] stores) {
+    Arrays.fill(cellStart, 0);
+
+    // count the entries in each cell, shifted by one...
+    int count = 0;
+    int listed = 0;
+    for (int s = 0; s < stores.length; s++) {
+      EntityStore<?> store = stores[s];
+      if (store.size() > INDEX_MASK) {
+        throw new IllegalStateException("Too many entities: " + store.size());
+      }
+      if (firstCells.length < listed + store.size()) {
+        int length = Math.max(listed + store.size(), firstCells.length * 2);
+        firstCells = Arrays.copyOf(firstCells, length);
+        extents = Arrays.copyOf(extents, length);
+      }
+      for (int i = 0; i < store.size(); i++) {
+        if (store.isRemoved(i)) {
+          firstCells[listed++] = -1;
+          continue;
+        }
+        int x = store.getX(i);
+        int y = store.getY(i);
+        int previousX = store.getPreviousX(i);
+        int previousY = store.getPreviousY(i);
+        int left = column(Math.min(x, previousX));
+        int right = column(Math.max(x, previousX) + store.getWidth(i) - 1);
+        int top = row(Math.min(y, previousY));
+        int bottom = row(Math.max(y, previousY) + store.getHeight(i) - 1);
+        firstCells[listed] = top * columns + left;
+        extents[listed++] = ((right - left) << 16) | (bottom - top);
+        for (int r = top; r <= bottom; r++) {
+          for (int c = left; c <= right; c++) {
+            cellStart[r * columns + c + 1]++;
+          }
+        }
+        count += (right - left + 1) * (bottom - top + 1);
+      }
+    }
+
+    // ...so adding them up gives where each cell's entries start...
+    for (int c = 1; c < cellStart.length; c++) {
+      cellStart[c] += cellStart[c - 1];
+    }
+    if (entries.length < count) {
+      entries = new int[Math.max(count, entries.length * 2)];
+    }
+
+    // ...then list them, moving each cell's start up to where it belongs
+    listed = 0;
+    for (int s = 0; s < stores.length; s++) {
+      int size = stores[s].size();
+      for (int i = 0; i < size; i++) {
+        int first = firstCells[listed];
+        int extent = extents[listed++];
+        if (first < 0) {
+          continue;
+        }
+        int entry = (s << INDEX_BITS) | i;
+        if (extent == 0) {
+          entries[cellStart[first]++] = entry;
+          continue;
+        }
+        int across = extent >>> 16;
+        int down = extent & 0xFFFF;
+        for (int r = 0; r <= down; r++) {
+          int cell = first + r * columns;
+          for (int c = 0; c <= across; c++) {
+            entries[cellStart[cell + c]++] = entry;
+          }
+        }
+      }
+    }
+    for (int c = cellStart.length - 1; c > 0; c--) {
+      cellStart[c] = cellStart[c - 1];
+    }
+    cellStart[0] = 0;
+  }
+
+  /**
+   * Returns the number of cells in the grid.
+   *
+   * @return the number of cells
+   */
+  public int getCellCount() {
+    return cellStart.length - 1;
+  }
+
+  /**
+   * Returns the position of the first entry listed in a cell.
+   *
+   * @param cell
+   *          - the cell
+   * @return the position of the cell's first entry
+   */
+  public int getCellStart(int cell) {
+    return cellStart[cell];
+  }
+
+  /**
+   * Returns the position after the last entry listed in a cell.
+   *
+   * @param cell
+   *          - the cell
+   * @return the position after the cell's last entry
+   */
+  public int getCellEnd(int cell) {
+    return cellStart[cell + 1];
+  }
+
+  /**
+   * Returns the number of the store of the entity listed at a position, in
+   * the order the stores were given to build().
+   *
+   * @param entry
+   *          - the position of the entry
+   * @return the number of the entity's store
+   */
+  public int getStore(int entry) {
+    return entries[entry] >>> INDEX_BITS;
+  }
+
+  /**
+   * Returns the index of the entity listed at a position, in its store.
+   *
+   * @param entry
+   *          - the position of the entry
+   * @return the index of the entity
+   */
+  public int getIndex(int entry) {
+    return entries[entry] & INDEX_MASK;
+  }
+
+  /**
+   * Returns the cell a point falls in, clamped to the playfield.
+   *
+   * @param x
+   *          - the x coordinate of the point
+   * @param y
+   *          - the y coordinate of the point
+   * @return the cell
+   */
+  public int getCell(int x, int y) {
+    return row(y) * columns + column(x);
+  }
+
+  /**
+   * Returns the grid column of an x coordinate, clamped to the playfield.
+   */
+  private int column(int x) {
+    if (x < 0) {
+      return 0;
+    }
+    return Math.min(x >> cellShift, columns - 1);
+  }
+
+  /**
+   * Returns the grid row of a y coordinate, clamped to the playfield.
+   */
+  private int row(int y) {
+    if (y < 0) {
+      return 0;
+    }
+    return Math.min(y >> cellShift, rows - 1);
+  }
+}
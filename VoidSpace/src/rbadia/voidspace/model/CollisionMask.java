@@ -0,0 +1,146 @@
+package rbadia.voidspace.model;
+
+/**
+ * The solid pixels of a sprite, used to confirm that two entities whose bounds
+ * overlap really touch. Each row of the mask is packed in 64 bit words, one bit
+ * per pixel, so checking two rows against each other takes a few shifts and
+ * an AND instead of one test per pixel.
+ *
+ * A mask is anchored at the top-left corner of its entity. Pixels past the
+ * edges of the mask are empty.
+ */
+public class CollisionMask {
+  private final int width;
+  private final int height;
+  private final int wordsPerRow;
+
+  // bit (x & 63) of word (y * wordsPerRow + (x >> 6)) is pixel (x, y)
+  private final long[] words;
+
+  /**
+   * Creates a new mask where every pixel is empty.
+   *
+   * @param width
+   *          - the width of the mask
+   * @param height
+   *          - the height of the mask
+   */
+  public CollisionMask(int width, int height) {
+    this.width = width;
+    this.height = height;
+    this.wordsPerRow = (width + 63) >> 6;
+    this.words = new long[wordsPerRow * height];
+  }
+
+  /**
+   * Makes a pixel of the mask solid.
+   *
+   * @param x
+   *          - the x coordinate of the pixel
+   * @param y
+   *          - the y coordinate of the pixel
+   */
+  public void set(int x, int y) {
+    if (x < 0 || x >= width || y < 0 || y >= height) {
+      throw new IndexOutOfBoundsException("Pixel: " + x + ", " + y);
+    }
+    words[y * wordsPerRow + (x >> 6)] |= 1L << (x & 63);
+  }
+
+  /**
+   * Indicates if a pixel of the mask is solid.
+   *
+   * @param x
+   *          - the x coordinate of the pixel
+   * @param y
+   *          - the y coordinate of the pixel
+   * @return true if the pixel is solid
+   */
+  public boolean isSet(int x, int y) {
+    return (row(y, x) & 1) != 0;
+  }
+
+  /**
+   * Returns the width of the mask.
+   *
+   * @return the width
+   */
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * Returns the height of the mask.
+   *
+   * @return the height
+   */
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * Returns 64 pixels of a row of the mask, starting at x, with pixel x in the
+   * lowest bit.
+   */
+  private long row(int y, int x) {
+    if (y < 0 || y >= height || x >= width || x <= -64) {
+      return 0;
+    }
+    if (x < 0) {
+      return row(y, 0) << -x;
+    }
+    int word = y * wordsPerRow + (x >> 6);
+    int shift = x & 63;
+    long bits = words[word] >>> shift;
+    if (shift != 0 && (x >> 6) + 1 < wordsPerRow) {
+      bits |= words[word + 1] << (64 - shift);
+    }
+    return bits;
+  }
+
+  /**
+   * Checks if two masks have a solid pixel in common inside a rectangle. A
+   * null mask is solid everywhere. All coordinates are on the playfield.
+   *
+   * @param a
+   *          - the first mask, or null
+   * @param ax
+   *          - the x coordinate of the first mask
+   * @param ay
+   *          - the y coordinate of the first mask
+   * @param b
+   *          - the second mask, or null
+   * @param bx
+   *          - the x coordinate of the second mask
+   * @param by
+   *          - the y coordinate of the second mask
+   * @param left
+   *          - the left edge of the rectangle
+   * @param top
+   *          - the top edge of the rectangle
+   * @param right
+   *          - the right edge of the rectangle, not included
+   * @param bottom
+   *          - the bottom edge of the rectangle, not included
+   * @return true if both masks are solid somewhere in the rectangle
+   */
+  static boolean overlap(CollisionMask a, int ax, int ay, CollisionMask b, int bx, int by,
+      int left, int top, int right, int bottom) {
+    for (int y = top; y < bottom; y++) {
+      for (int x = left; x < right; x += 64) {
+        int n = right - x;
+        long bits = n >= 64 ? -1L : (1L << n) - 1;
+        if (a != null) {
+          bits &= a.row(y - ay, x - ax);
+        }
+        if (b != null) {
+          bits &= b.row(y - by, x - bx);
+        }
+        if (bits != 0) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+}
@@ -1,31 +1,34 @@
 package rbadia.voidspace.model;
 
-import java.awt.Rectangle;
-
 /**
  * Represents an enemy bullet fired by an enemy ship.
  */
-public class EnemyBullet extends Rectangle {
-  private static final long serialVersionUID = 1L;
-
-  private int bulletWidth = 8;
-  private int bulletHeight = 8;
-  private int speed = -12;
+public class EnemyBullet extends Entity {
+  private static final int BULLET_WIDTH = 8;
+  private static final int BULLET_HEIGHT = 8;
+  private static final int BULLET_SPEED = -12;
 
   /**
-   * Creates a new bullet above the enemy ship, centered on it
+   * Creates a new enemy bullet, to be fired later
    * 
-   * @param ship
+   * @param store
+   *          the store the bullet is added to
    */
-  public EnemyBullet(EnemyShip ship) {
-    this.setLocation(ship.x + ship.width / 2 - bulletWidth / 2, ship.y + bulletHeight);
-    this.setSize(bulletWidth, bulletHeight);
+  public EnemyBullet(EntityStore<EnemyBullet> store) {
+    super(store);
   }
 
-  public EnemyBullet(ChuckNorris chuckNorris) {
-    this.setLocation(chuckNorris.x + chuckNorris.width / 2 - bulletWidth / 2, chuckNorris.y
-        + bulletHeight);
-    this.setSize(bulletWidth, bulletHeight);
+  /**
+   * Fires the bullet from below an enemy ship (or chuck norris), centered on it
+   * 
+   * @param enemy
+   *          the enemy firing the bullet
+   */
+  public void fireFrom(Entity enemy) {
+    this.setLocation(enemy.getX() + enemy.getWidth() / 2 - BULLET_WIDTH / 2,
+        enemy.getY() + BULLET_HEIGHT);
+    this.setSize(BULLET_WIDTH, BULLET_HEIGHT);
+    this.setSpeed(BULLET_SPEED);
   }
 
   /**
@@ -34,7 +37,7 @@ public class EnemyBullet extends Rectangle {
    * @return the bullet's speed.
    */
   public int getSpeed() {
-    return speed;
+    return store.getSpeed(index);
   }
 
   /**
@@ -44,6 +47,6 @@ public class EnemyBullet extends Rectangle {
    *          the speed to set
    */
   public void setSpeed(int speed) {
-    this.speed = speed;
+    store.setSpeed(index, speed);
   }
 }
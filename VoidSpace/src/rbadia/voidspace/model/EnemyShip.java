@@ -1,61 +1,42 @@
 package rbadia.voidspace.model;
 
-import java.awt.Rectangle;
-import java.util.Random;
-
-import rbadia.voidspace.main.GameScreen;
-
 /**
  * This class represents an enemy ship.
  * 
  * @author Samuel Rodriguez Martinez
  *
  */
-public class EnemyShip extends Rectangle {
-  private static final long serialVersionUID = 1L;
-
+public class EnemyShip extends Entity {
   public static final int DEFAULT_SPEED = 3;
 
-  private int enemyShipWidth = 25;
-  private int enemyShipHeightHeight = 25;
-  private int speed = DEFAULT_SPEED;
-  private int horizontalSpeed = DEFAULT_SPEED;
-  private int horizontalLocation;
-  private long lastEnemyShipTime = 0;
-  private boolean isNew = false;
-  private int randomMultiplier = -1;
+  private static final int ENEMY_SHIP_WIDTH = 25;
+  private static final int ENEMY_SHIP_HEIGHT = 25;
 
-  // added shit
-  private long enemyBulletTime = 0;
-  private int cooldown;
-  private int minCooldown = 250;
-  private int maxCooldown = 750;
+  private static final int MIN_COOLDOWN = 250;
+  private static final int MAX_COOLDOWN = 750;
 
-  private Random rand = new Random();
+  private RandomStream cooldownRandom;
 
   /**
    * Crates a new enemy ship at a random x location at the top of the screen
    * 
-   * @param screen
-   *          the game screen
-   */
-  public EnemyShip(GameScreen screen) {
-    this.setLocation(rand.nextInt(screen.getWidth() - enemyShipWidth), 0);
-    this.setSize(enemyShipWidth, enemyShipHeightHeight);
-    this.horizontalLocation = rand.nextInt(screen.getWidth() - enemyShipWidth);
-  }
-
-  /**
-   * Sets the location of the enemy ship
-   * 
-   * @param x
-   *          - the x coordinate of the enemy ship
-   * @param y
-   *          - the y coordinate of the enemy ship
+   * @param store
+   *          the store the enemy ship is added to
+   * @param bounds
+   *          the bounds of the game world
+   * @param random
+   *          the game's random number service
    */
-  public void setLocation(int x, int y) {
-    super.setLocation(x, y);
-    this.horizontalLocation = x;
+  public EnemyShip(EntityStore<EnemyShip> store, WorldBounds bounds, GameRandom random) {
+    super(store);
+    this.setLocation(random.spawn().nextInt(bounds.getWidth() - ENEMY_SHIP_WIDTH), 0);
+    this.setSize(ENEMY_SHIP_WIDTH, ENEMY_SHIP_HEIGHT);
+    this.setSpeed(DEFAULT_SPEED);
+    this.setHorizontalSpeed(DEFAULT_SPEED);
+    store.setHorizontalLocation(index,
+        random.spawn().nextInt(bounds.getWidth() - ENEMY_SHIP_WIDTH));
+    store.setRandomMultiplier(index, random.movement().nextInt());
+    this.cooldownRandom = random.cooldown();
   }
 
   /**
@@ -64,7 +45,7 @@ public class EnemyShip extends Rectangle {
    * @return the enemy ship's image width
    */
   public int getEnemyShipWidth() {
-    return enemyShipWidth;
+    return ENEMY_SHIP_WIDTH;
   }
 
   /**
@@ -73,7 +54,7 @@ public class EnemyShip extends Rectangle {
    * @return the enemy ship's image height
    */
   public int getEnemyShipHeight() {
-    return enemyShipHeightHeight;
+    return ENEMY_SHIP_HEIGHT;
   }
 
   /**
@@ -82,7 +63,7 @@ public class EnemyShip extends Rectangle {
    * @return the current asteroid speed
    */
   public int getSpeed() {
-    return speed;
+    return store.getSpeed(index);
   }
 
   /**
@@ -92,7 +73,7 @@ public class EnemyShip extends Rectangle {
    *          the speed to set
    */
   public void setSpeed(int speed) {
-    this.speed = speed;
+    store.setSpeed(index, speed);
   }
 
   /**
@@ -110,7 +91,7 @@ public class EnemyShip extends Rectangle {
    * @return the horizontal x coordinate of the enemy ship
    */
   public int getHorizontalLocation() {
-    return horizontalLocation;
+    return store.getHorizontalLocation(index);
   }
 
   /**
@@ -120,7 +101,7 @@ public class EnemyShip extends Rectangle {
    *          - the speed of the enemy ship
    */
   public void setHorizontalSpeed(int speed) {
-    this.horizontalSpeed = speed;
+    store.setHorizontalSpeed(index, speed);
   }
 
   /**
@@ -129,7 +110,7 @@ public class EnemyShip extends Rectangle {
    * @return the horizontal speed of the enemy ship
    */
   public int getHorizontalSpeed() {
-    return this.horizontalSpeed;
+    return store.getHorizontalSpeed(index);
   }
 
   /**
@@ -139,7 +120,7 @@ public class EnemyShip extends Rectangle {
    *          - the enemy ship's bullet time
    */
   public void setEnemyBulletTime(long enemyBulletTime) {
-    this.enemyBulletTime = enemyBulletTime;
+    store.setFireTime(index, enemyBulletTime);
   }
 
   /**
@@ -148,14 +129,14 @@ public class EnemyShip extends Rectangle {
    * @return the enemy ship's bullet time
    */
   public long getEnemyBulletTime() {
-    return enemyBulletTime;
+    return store.getFireTime(index);
   }
 
   /**
    * Changes the random cooldown time of the bullets fired by the enemy ship.
    */
   public void changeCooldown() {
-    this.cooldown = rand.nextInt(maxCooldown - minCooldown) + minCooldown;
+    store.setCooldown(index, cooldownRandom.nextInt(MAX_COOLDOWN - MIN_COOLDOWN) + MIN_COOLDOWN);
   }
 
   /**
@@ -164,7 +145,7 @@ public class EnemyShip extends Rectangle {
    * @return the cooldown time of the bullets that the enemy ship fires
    */
   public int getCooldown() {
-    return cooldown;
+    return store.getCooldown(index);
   }
 
   /**
@@ -174,7 +155,7 @@ public class EnemyShip extends Rectangle {
    *          - the enemy ship's last time.
    */
   public void setLastEnemyShipTime(long time) {
-    this.lastEnemyShipTime = time;
+    store.setLastTime(index, time);
   }
 
   /**
@@ -183,7 +164,7 @@ public class EnemyShip extends Rectangle {
    * @return the enemy ship's last time
    */
   public long getLastEnemyShipTime() {
-    return this.lastEnemyShipTime;
+    return store.getLastTime(index);
   }
 
   /**
@@ -192,7 +173,7 @@ public class EnemyShip extends Rectangle {
    * @return true if the enemy ship is new, false otherwise
    */
   public boolean isNew() {
-    return isNew;
+    return store.isNew(index);
   }
 
   /**
@@ -202,7 +183,7 @@ public class EnemyShip extends Rectangle {
    *          - should be true if the enemy ship is new, false otherwise
    */
   public void isNew(boolean status) {
-    isNew = status;
+    store.setNew(index, status);
   }
 
   /**
@@ -211,9 +192,6 @@ public class EnemyShip extends Rectangle {
    * @return a random movement multiplier for the enemy ship's speed.
    */
   public int getRandomMovementMultiplier() {
-    if (randomMultiplier == -1) {
-      this.randomMultiplier = this.rand.nextInt();
-    }
-    return this.randomMultiplier;
+    return store.getRandomMultiplier(index);
   }
 }
@@ -0,0 +1,148 @@
+package rbadia.voidspace.model;
+
+/**
+ * Base class for everything that moves on the game screen. An entity is a
+ * thin view over one index of an entity store, where its location, size and
+ * the rest of its properties are actually kept. The store also remembers
+ * where the entity was at the start of the current simulation tick, so it can
+ * be drawn in between ticks.
+ */
+public abstract class Entity {
+  EntityStore<?> store;
+  int index;
+
+  /**
+   * Adds a new entity to the given store.
+   *
+   * @param store
+   *          - the store that keeps the entity's properties
+   */
+  protected Entity(EntityStore<?> store) {
+    this.store = store;
+    this.index = store.attach(this);
+  }
+
+  /**
+   * Returns the index of the entity in its store, or -1 if the entity has been
+   * removed from the store.
+   *
+   * @return the index of the entity
+   */
+  public int getIndex() {
+    return index;
+  }
+
+  /**
+   * Returns the x coordinate of the entity.
+   *
+   * @return the x coordinate
+   */
+  public int getX() {
+    return store.getX(index);
+  }
+
+  /**
+   * Returns the y coordinate of the entity.
+   *
+   * @return the y coordinate
+   */
+  public int getY() {
+    return store.getY(index);
+  }
+
+  /**
+   * Returns the width of the entity.
+   *
+   * @return the width
+   */
+  public int getWidth() {
+    return store.getWidth(index);
+  }
+
+  /**
+   * Returns the height of the entity.
+   *
+   * @return the height
+   */
+  public int getHeight() {
+    return store.getHeight(index);
+  }
+
+  /**
+   * Sets the location of the entity. The entity is moved there directly,
+   * without being interpolated from its last position.
+   *
+   * @param x
+   *          - the x coordinate of the entity
+   * @param y
+   *          - the y coordinate of the entity
+   */
+  public void setLocation(int x, int y) {
+    store.setLocation(index, x, y);
+  }
+
+  /**
+   * Moves the entity by the given amount.
+   *
+   * @param dx
+   *          - the distance to move along the x axis
+   * @param dy
+   *          - the distance to move along the y axis
+   */
+  public void translate(int dx, int dy) {
+    store.translate(index, dx, dy);
+  }
+
+  /**
+   * Sets the size of the entity.
+   *
+   * @param width
+   *          - the width of the entity
+   * @param height
+   *          - the height of the entity
+   */
+  public void setSize(int width, int height) {
+    store.setSize(index, width, height);
+  }
+
+  /**
+   * Checks if the bounds of this entity and another one overlap.
+   *
+   * @param other
+   *          - the other entity
+   * @return true if the entities overlap
+   */
+  public boolean intersects(Entity other) {
+    return store.intersects(index, other.store, other.index);
+  }
+
+  /**
+   * Checks if this entity and another one overlap at any time during the
+   * current tick, while moving from where they were at the start of the tick.
+   *
+   * @param other
+   *          - the other entity
+   * @return true if the entities overlap during the tick
+   */
+  public boolean sweptIntersects(Entity other) {
+    return store.sweptIntersects(index, other.store, other.index);
+  }
+
+  /**
+   * Returns the x coordinate at the start of the current tick.
+   *
+   * @return the previous x coordinate
+   */
+  public int getPreviousX() {
+    return store.getPreviousX(index);
+  }
+
+  /**
+   * Returns the y coordinate at the start of the current tick.
+   *
+   * @return the previous y coordinate
+   */
+  public int getPreviousY() {
+    return store.getPreviousY(index);
+  }
+}
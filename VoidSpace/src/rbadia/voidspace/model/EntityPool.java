@@ -0,0 +1,150 @@
+package rbadia.voidspace.model;
+
+/**
+ * An entity store that recycles its entities. Entities removed from the pool
+ * are kept aside and handed out again by acquire(), so short-lived entities
+ * like bullets stop creating garbage once the pool has warmed up.
+ *
+ * The pool never holds more than a fixed number of entities; acquire()
+ * returns null once they are all in use. Subclasses create the entities.
+ *
+ * @param <T>
+ *          the kind of entity kept in the pool
+ */
+public abstract class EntityPool<T extends Entity> extends EntityStore<T> {
+  private final int maxSize;
+
+  private Entity[] free;
+  private int freeCount;
+
+  private long allocations;
+  private long acquisitions;
+
+  /**
+   * Creates a new, empty pool.
+   *
+   * @param maxSize
+   *          - the maximum number of entities the pool can hold
+   */
+  public EntityPool(int maxSize) {
+    super(maxSize);
+    this.maxSize = maxSize;
+    this.free = new Entity[maxSize];
+  }
+
+  /**
+   * Creates a new entity in the pool. Only called while the pool still has room
+   * for more entities and none of its entities are free.
+   *
+   * @return the new entity
+   */
+  protected abstract T create();
+
+  /**
+   * Counts every new entity added to the pool.
+   */
+  @Override
+  int attach(Entity view) {
+    if (size() + freeCount >= maxSize) {
+      throw new IllegalStateException("Pool is full: " + maxSize + " entities");
+    }
+    allocations++;
+    return super.attach(view);
+  }
+
+  /**
+   * Hands out an entity, reusing a free one if possible. The entity is added to
+   * the end of the pool with all its properties set to zero.
+   *
+   * @return the entity, or null if all the entities are in use
+   */
+  @SuppressWarnings("unchecked")
+  public T acquire() {
+    T entity;
+    if (freeCount > 0) {
+      Entity view = free[--freeCount];
+      free[freeCount] = null;
+      view.index = super.attach(view);
+      entity = (T) view;
+    } else if (size() < maxSize) {
+      entity = create();
+    } else {
+      return null;
+    }
+    acquisitions++;
+    return entity;
+  }
+
+  /**
+   * Takes the entity at the given index out of the pool, and keeps it to be
+   * acquired again.
+   *
+   * @param i
+   *          - the index of the entity to release
+   */
+  public void release(int i) {
+    Entity view = get(i);
+    super.remove(i);
+    free[freeCount++] = view;
+  }
+
+  /**
+   * Releases the entity at the given index.
+   *
+   * @param i
+   *          - the index of the entity to release
+   */
+  @Override
+  public void remove(int i) {
+    release(i);
+  }
+
+  /**
+   * Releases all the entities in the pool.
+   */
+  @Override
+  public void clear() {
+    while (size() > 0) {
+      release(size() - 1);
+    }
+  }
+
+  /**
+   * Returns the maximum number of entities the pool can hold.
+   *
+   * @return the maximum number of entities
+   */
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  /**
+   * Returns the number of entities ever created by the pool.
+   *
+   * @return the number of entities created
+   */
+  public long getAllocationCount() {
+    return allocations;
+  }
+
+  /**
+   * Returns the number of entities ever handed out by the pool, created or
+   * reused.
+   *
+   * @return the number of entities acquired
+   */
+  public long getAcquireCount() {
+    return acquisitions;
+  }
+
+  /**
+   * Sets the number of entities handed out by the pool, when restoring a
+   * saved game.
+   *
+   * @param acquisitions
+   *          - the number of entities acquired
+   */
+  public void setAcquireCount(long acquisitions) {
+    this.acquisitions = acquisitions;
+  }
+}
@@ -0,0 +1,795 @@
+package rbadia.voidspace.model;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Keeps all the entities of one kind in parallel arrays of primitives, one
+ * array per property, instead of one object per entity. Loops that update
+ * every entity walk straight through memory, so they stay fast even with
+ * hundreds of thousands of entities.
+ *
+ * Entities are addressed by their index in the store. The model classes
+ * (Asteroid, Bullet, Ship, ...) are thin views over one index, so the rest of
+ * the game can still use their getters and setters.
+ *
+ * Removing an entity moves the last entity into its place, so the order of
+ * the entities changes. Loops that remove entities while going through the
+ * store should mark them with markRemoved() instead, and call removeMarked()
+ * once they are done, so the indexes stay the same during the loop.
+ *
+ * @param <T>
+ *          the kind of entity kept in the store
+ */
+public class EntityStore<T extends Entity> {
+  private static final int DEFAULT_CAPACITY = 16;
+
+  // state flags
+  private static final int FLAG_NEW = 1;
+  private static final int FLAG_REMOVED = 2;
+
+  private int size;
+  private int markedCount;
+  private Entity[] views;
+
+  // position and size
+  private int[] x;
+  private int[] y;
+  private int[] width;
+  private int[] height;
+  private int[] previousX;
+  private int[] previousY;
+
+  // movement
+  private int[] speed;
+  private int[] horizontalSpeed;
+  private int[] horizontalLocation;
+  private int[] randomMultiplier;
+
+  // state
+  private int[] flags;
+  private int[] cooldown;
+  private long[] lastTime;
+  private long[] fireTime;
+
+  // the solid pixels shared by every entity in the store, if known
+  private CollisionMask mask;
+
+  /**
+   * Creates a new, empty entity store.
+   */
+  public EntityStore() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Creates a new, empty entity store with room for the given number of
+   * entities. The store grows as needed.
+   *
+   * @param capacity
+   *          - the initial number of entities the store has room for
+   */
+  public EntityStore(int capacity) {
+    capacity = Math.max(capacity, 1);
+    views = new Entity[capacity];
+    x = new int[capacity];
+    y = new int[capacity];
+    width = new int[capacity];
+    height = new int[capacity];
+    previousX = new int[capacity];
+    previousY = new int[capacity];
+    speed = new int[capacity];
+    horizontalSpeed = new int[capacity];
+    horizontalLocation = new int[capacity];
+    randomMultiplier = new int[capacity];
+    flags = new int[capacity];
+    cooldown = new int[capacity];
+    lastTime = new long[capacity];
+    fireTime = new long[capacity];
+  }
+
+  /**
+   * Adds a new entity to the end of the store, with all its properties set to
+   * zero. Called by the entity views when they are created.
+   *
+   * @param view
+   *          - the view for the new entity
+   * @return the index of the new entity
+   */
+  int attach(Entity view) {
+    if (size == views.length) {
+      grow(size * 2);
+    }
+    int i = size++;
+    views[i] = view;
+    x[i] = 0;
+    y[i] = 0;
+    width[i] = 0;
+    height[i] = 0;
+    previousX[i] = 0;
+    previousY[i] = 0;
+    speed[i] = 0;
+    horizontalSpeed[i] = 0;
+    horizontalLocation[i] = 0;
+    randomMultiplier[i] = 0;
+    flags[i] = 0;
+    cooldown[i] = 0;
+    lastTime[i] = 0;
+    fireTime[i] = 0;
+    return i;
+  }
+
+  /**
+   * Makes room for the given number of entities.
+   */
+  private void grow(int capacity) {
+    views = Arrays.copyOf(views, capacity);
+    x = Arrays.copyOf(x, capacity);
+    y = Arrays.copyOf(y, capacity);
+    width = Arrays.copyOf(width, capacity);
+    height = Arrays.copyOf(height, capacity);
+    previousX = Arrays.copyOf(previousX, capacity);
+    previousY = Arrays.copyOf(previousY, capacity);
+    speed = Arrays.copyOf(speed, capacity);
+    horizontalSpeed = Arrays.copyOf(horizontalSpeed, capacity);
+    horizontalLocation = Arrays.copyOf(horizontalLocation, capacity);
+    randomMultiplier = Arrays.copyOf(randomMultiplier, capacity);
+    flags = Arrays.copyOf(flags, capacity);
+    cooldown = Arrays.copyOf(cooldown, capacity);
+    lastTime = Arrays.copyOf(lastTime, capacity);
+    fireTime = Arrays.copyOf(fireTime, capacity);
+  }
+
+  /**
+   * Removes the entity at the given index, moving the last entity into its
+   * place. The removed entity's view is detached from the store.
+   *
+   * @param i
+   *          - the index of the entity to remove
+   */
+  public void remove(int i) {
+    if (i < 0 || i >= size) {
+      throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+    }
+    if ((flags[i] & FLAG_REMOVED) != 0) {
+      markedCount--;
+    }
+    views[i].index = -1;
+
+    int last = --size;
+    if (i != last) {
+      move(last, i);
+    }
+    views[last] = null;
+  }
+
+  /**
+   * Moves an entity to another index, overwriting the entity there.
+   */
+  private void move(int from, int to) {
+    views[to] = views[from];
+    views[to].index = to;
+    x[to] = x[from];
+    y[to] = y[from];
+    width[to] = width[from];
+    height[to] = height[from];
+    previousX[to] = previousX[from];
+    previousY[to] = previousY[from];
+    speed[to] = speed[from];
+    horizontalSpeed[to] = horizontalSpeed[from];
+    horizontalLocation[to] = horizontalLocation[from];
+    randomMultiplier[to] = randomMultiplier[from];
+    flags[to] = flags[from];
+    cooldown[to] = cooldown[from];
+    lastTime[to] = lastTime[from];
+    fireTime[to] = fireTime[from];
+  }
+
+  /**
+   * Marks the entity at the given index to be removed by the next call to
+   * removeMarked(). Until then the entity keeps its index, but no longer
+   * intersects anything.
+   *
+   * @param i
+   *          - the index of the entity to remove
+   */
+  public void markRemoved(int i) {
+    if ((flags[i] & FLAG_REMOVED) == 0) {
+      flags[i] |= FLAG_REMOVED;
+      markedCount++;
+    }
+  }
+
+  /**
+   * Indicates if the entity at the given index is marked to be removed.
+   *
+   * @param i
+   *          - the index of the entity
+   * @return true if the entity is marked to be removed
+   */
+  public boolean isRemoved(int i) {
+    return (flags[i] & FLAG_REMOVED) != 0;
+  }
+
+  /**
+   * Removes all the entities marked with markRemoved().
+   */
+  public void removeMarked() {
+    // going backwards, the entity moved into a removed one's place has
+    // already been checked
+    for (int i = size - 1; i >= 0 && markedCount > 0; i--) {
+      if ((flags[i] & FLAG_REMOVED) != 0) {
+        remove(i);
+      }
+    }
+  }
+
+  /**
+   * Removes all the entities from the store, keeping its arrays for reuse.
+   */
+  public void clear() {
+    for (int i = 0; i < size; i++) {
+      views[i].index = -1;
+      views[i] = null;
+    }
+    size = 0;
+    markedCount = 0;
+  }
+
+  /**
+   * Returns the number of entities in the store.
+   *
+   * @return the number of entities
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the view for the entity at the given index.
+   *
+   * @param i
+   *          - the index of the entity
+   * @return the entity
+   */
+  @SuppressWarnings("unchecked")
+  public T get(int i) {
+    if (i < 0 || i >= size) {
+      throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+    }
+    return (T) views[i];
+  }
+
+  /**
+   * Remembers the current location of every entity as its location at the
+   * start of the tick.
+   */
+  public void savePositions() {
+    System.arraycopy(x, 0, previousX, 0, size);
+    System.arraycopy(y, 0, previousY, 0, size);
+  }
+
+  /**
+   * Checks if the bounds of an entity in this store and an entity in another
+   * store overlap. If either store has a collision mask, the overlap must also
+   * have a solid pixel of both entities. Entities marked to be removed never
+   * overlap anything.
+   *
+   * @param i
+   *          - the index of the entity in this store
+   * @param other
+   *          - the store of the other entity
+   * @param j
+   *          - the index of the other entity
+   * @return true if the entities overlap
+   */
+  public boolean intersects(int i, EntityStore<?> other, int j) {
+    if (((flags[i] | other.flags[j]) & FLAG_REMOVED) != 0) {
+      return false;
+    }
+    if (!intersects(i, other.x[j], other.y[j], other.width[j], other.height[j])) {
+      return false;
+    }
+    return (mask == null && other.mask == null)
+        || masksOverlap(i, x[i], y[i], other, j, other.x[j], other.y[j]);
+  }
+
+  /**
+   * Checks if an entity in this store and an entity in another store overlap
+   * at any time during the current tick, while both move in a straight line
+   * from their location at the start of the tick to their current one. Unlike
+   * intersects(), this catches fast entities that go through each other
+   * between two ticks. If either store has a collision mask, the masks are
+   * checked at every pixel along the paths. Entities marked to be removed
+   * never overlap anything.
+   *
+   * @param i
+   *          - the index of the entity in this store
+   * @param other
+   *          - the store of the other entity
+   * @param j
+   *          - the index of the other entity
+   * @return true if the entities overlap during the tick
+   */
+  public boolean sweptIntersects(int i, EntityStore<?> other, int j) {
+    if (((flags[i] | other.flags[j]) & FLAG_REMOVED) != 0) {
+      return false;
+    }
+    int w = width[i];
+    int h = height[i];
+    int ow = other.width[j];
+    int oh = other.height[j];
+    if (w <= 0 || h <= 0 || ow <= 0 || oh <= 0) {
+      return false;
+    }
+
+    // seen from the other entity, only this one moves: it starts at
+    // (startX, startY) and moves by (dx, dy) during the tick
+    int startX = previousX[i] - other.previousX[j];
+    int startY = previousY[i] - other.previousY[j];
+    int dx = (x[i] - previousX[i]) - (other.x[j] - other.previousX[j]);
+    int dy = (y[i] - previousY[i]) - (other.y[j] - other.previousY[j]);
+
+    // the entities overlap while -w < startX + dx * t < ow, and the same for
+    // y; find the times, as fractions of the tick, when both hold
+    double enter = Double.NEGATIVE_INFINITY;
+    double exit = Double.POSITIVE_INFINITY;
+    if (dx == 0) {
+      if (startX <= -w || startX >= ow) {
+        return false;
+      }
+    } else {
+      double t1 = (double) (-w - startX) / dx;
+      double t2 = (double) (ow - startX) / dx;
+      enter = Math.max(enter, Math.min(t1, t2));
+      exit = Math.min(exit, Math.max(t1, t2));
+    }
+    if (dy == 0) {
+      if (startY <= -h || startY >= oh) {
+        return false;
+      }
+    } else {
+      double t1 = (double) (-h - startY) / dy;
+      double t2 = (double) (oh - startY) / dy;
+      enter = Math.max(enter, Math.min(t1, t2));
+      exit = Math.min(exit, Math.max(t1, t2));
+    }
+    if (enter >= exit || enter >= 1 || exit <= 0) {
+      return false;
+    }
+    if (mask == null && other.mask == null) {
+      return true;
+    }
+
+    // the bounds touch at some point, check the masks a pixel at a time
+    int moveX = x[i] - previousX[i];
+    int moveY = y[i] - previousY[i];
+    int otherMoveX = other.x[j] - other.previousX[j];
+    int otherMoveY = other.y[j] - other.previousY[j];
+    int steps = Math.max(Math.max(Math.abs(moveX), Math.abs(moveY)),
+        Math.max(Math.abs(otherMoveX), Math.abs(otherMoveY)));
+    if (steps == 0) {
+      return masksOverlap(i, x[i], y[i], other, j, other.x[j], other.y[j]);
+    }
+    for (int k = 0; k <= steps; k++) {
+      if (masksOverlap(i, previousX[i] + moveX * k / steps, previousY[i] + moveY * k / steps,
+          other, j, other.previousX[j] + otherMoveX * k / steps,
+          other.previousY[j] + otherMoveY * k / steps)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Checks if the masks of an entity in this store and an entity in another
+   * store, placed at the given locations, have a solid pixel in common where
+   * their bounds overlap. A store without a mask is solid everywhere.
+   */
+  private boolean masksOverlap(int i, int ax, int ay, EntityStore<?> other, int j, int bx,
+      int by) {
+    int left = Math.max(ax, bx);
+    int top = Math.max(ay, by);
+    int right = Math.min(ax + width[i], bx + other.width[j]);
+    int bottom = Math.min(ay + height[i], by + other.height[j]);
+    if (left >= right || top >= bottom) {
+      return false;
+    }
+    return CollisionMask.overlap(mask, ax, ay, other.mask, bx, by, left, top, right, bottom);
+  }
+
+  /**
+   * Sets the solid pixels of the entities in the store, used to confirm their
+   * collisions. All the entities in a store share the same mask.
+   *
+   * @param mask
+   *          - the mask, or null to use the bounds alone
+   */
+  public void setMask(CollisionMask mask) {
+    this.mask = mask;
+  }
+
+  /**
+   * Returns the solid pixels of the entities in the store.
+   *
+   * @return the mask, or null if the bounds alone are used
+   */
+  public CollisionMask getMask() {
+    return mask;
+  }
+
+  /**
+   * Checks if the bounds of an entity overlap a rectangle.
+   *
+   * @param i
+   *          - the index of the entity
+   * @param rx
+   *          - the x coordinate of the rectangle
+   * @param ry
+   *          - the y coordinate of the rectangle
+   * @param rw
+   *          - the width of the rectangle
+   * @param rh
+   *          - the height of the rectangle
+   * @return true if the entity overlaps the rectangle
+   */
+  public boolean intersects(int i, int rx, int ry, int rw, int rh) {
+    int w = width[i];
+    int h = height[i];
+    if (w <= 0 || h <= 0 || rw <= 0 || rh <= 0) {
+      return false;
+    }
+    return x[i] < rx + rw && rx < x[i] + w && y[i] < ry + rh && ry < y[i] + h;
+  }
+
+  /**
+   * Returns the x coordinate of an entity.
+   *
+   * @param i
+   *          - the index of the entity
+   * @return the x coordinate
+   */
+  public int getX(int i) {
+    return x[i];
+  }
+
+  /**
+   * Returns the y coordinate of an entity.
+   *
+   * @param i
+   *          - the index of the entity
+   * @return the y coordinate
+   */
+  public int getY(int i) {
+    return y[i];
+  }
+
+  /**
+   * Returns the width of an entity.
+   *
+   * @param i
+   *          - the index of the entity
+   * @return the width
+   */
+  public int getWidth(int i) {
+    return width[i];
+  }
+
+  /**
+   * Returns the height of an entity.
+   *
+   * @param i
+   *          - the index of the entity
+   * @return the height
+   */
+  public int getHeight(int i) {
+    return height[i];
+  }
+
+  /**
+   * Returns the x coordinate of an entity at the start of the current tick.
+   *
+   * @param i
+   *          - the index of the entity
+   * @return the previous x coordinate
+   */
+  public int getPreviousX(int i) {
+    return previousX[i];
+  }
+
+  /**
+   * Returns the y coordinate of an entity at the start of the current tick.
+   *
+   * @param i
+   *          - the index of the entity
+   * @return the previous y coordinate
+   */
+  public int getPreviousY(int i) {
+    return previousY[i];
+  }
+
+  /**
+   * Moves an entity directly to the given location, without interpolating
+   * from its last location. Also remembers the x coordinate as the entity's
+   * horizontal location.
+   *
+   * @param i
+   *          - the index of the entity
+   * @param newX
+   *          - the new x coordinate
+   * @param newY
+   *          - the new y coordinate
+   */
+  public void setLocation(int i, int newX, int newY) {
+    x[i] = newX;
+    y[i] = newY;
+    previousX[i] = newX;
+    previousY[i] = newY;
+    horizontalLocation[i] = newX;
+  }
+
+  /**
+   * Moves an entity by the given amount.
+   *
+   * @param i
+   *          - the index of the entity
+   * @param dx
+   *          - the distance to move along the x axis
+   * @param dy
+   *          - the distance to move along the y axis
+   */
+  public void translate(int i, int dx, int dy) {
+    x[i] += dx;
+    y[i] += dy;
+  }
+
+  /**
+   * Sets the size of an entity.
+   *
+   * @param i
+   *          - the index of the entity
+   * @param newWidth
+   *          - the new width
+   * @param newHeight
+   *          - the new height
+   */
+  public void setSize(int i, int newWidth, int newHeight) {
+    width[i] = newWidth;
+    height[i] = newHeight;
+  }
+
+  /**
+   * Returns the (vertical) speed of an entity.
+   *
+   * @param i
+   *          - the index of the entity
+   * @return the speed
+   */
+  public int getSpeed(int i) {
+    return speed[i];
+  }
+
+  /**
+   * Sets the (vertical) speed of an entity.
+   *
+   * @param i
+   *          - the index of the entity
+   * @param newSpeed
+   *          - the new speed
+   */
+  public void setSpeed(int i, int newSpeed) {
+    speed[i] = newSpeed;
+  }
+
+  /**
+   * Returns the horizontal speed of an entity.
+   *
+   * @param i
+   *          - the index of the entity
+   * @return the horizontal speed
+   */
+  public int getHorizontalSpeed(int i) {
+    return horizontalSpeed[i];
+  }
+
+  /**
+   * Sets the horizontal speed of an entity.
+   *
+   * @param i
+   *          - the index of the entity
+   * @param newSpeed
+   *          - the new horizontal speed
+   */
+  public void setHorizontalSpeed(int i, int newSpeed) {
+    horizontalSpeed[i] = newSpeed;
+  }
+
+  /**
+   * Returns the x coordinate an entity was last placed at.
+   *
+   * @param i
+   *          - the index of the entity
+   * @return the horizontal location
+   */
+  public int getHorizontalLocation(int i) {
+    return horizontalLocation[i];
+  }
+
+  /**
+   * Sets the x coordinate an entity was last placed at.
+   *
+   * @param i
+   *          - the index of the entity
+   * @param location
+   *          - the horizontal location
+   */
+  public void setHorizontalLocation(int i, int location) {
+    horizontalLocation[i] = location;
+  }
+
+  /**
+   * Returns the random movement multiplier of an entity.
+   *
+   * @param i
+   *          - the index of the entity
+   * @return the random movement multiplier
+   */
+  public int getRandomMultiplier(int i) {
+    return randomMultiplier[i];
+  }
+
+  /**
+   * Sets the random movement multiplier of an entity.
+   *
+   * @param i
+   *          - the index of the entity
+   * @param multiplier
+   *          - the random movement multiplier
+   */
+  public void setRandomMultiplier(int i, int multiplier) {
+    randomMultiplier[i] = multiplier;
+  }
+
+  /**
+   * Indicates if an entity is new, that is, exploding and waiting to reappear.
+   *
+   * @param i
+   *          - the index of the entity
+   * @return true if the entity is new
+   */
+  public boolean isNew(int i) {
+    return (flags[i] & FLAG_NEW) != 0;
+  }
+
+  /**
+   * Sets if an entity is new, that is, exploding and waiting to reappear.
+   *
+   * @param i
+   *          - the index of the entity
+   * @param isNew
+   *          - true if the entity is new
+   */
+  public void setNew(int i, boolean isNew) {
+    if (isNew) {
+      flags[i] |= FLAG_NEW;
+    } else {
+      flags[i] &= ~FLAG_NEW;
+    }
+  }
+
+  /**
+   * Returns the time an entity last (re)appeared or exploded.
+   *
+   * @param i
+   *          - the index of the entity
+   * @return the entity's last time, in milliseconds
+   */
+  public long getLastTime(int i) {
+    return lastTime[i];
+  }
+
+  /**
+   * Sets the time an entity last (re)appeared or exploded.
+   *
+   * @param i
+   *          - the index of the entity
+   * @param time
+   *          - the entity's last time, in milliseconds
+   */
+  public void setLastTime(int i, long time) {
+    lastTime[i] = time;
+  }
+
+  /**
+   * Returns the time an entity last fired.
+   *
+   * @param i
+   *          - the index of the entity
+   * @return the entity's fire time, in milliseconds
+   */
+  public long getFireTime(int i) {
+    return fireTime[i];
+  }
+
+  /**
+   * Sets the time an entity last fired.
+   *
+   * @param i
+   *          - the index of the entity
+   * @param time
+   *          - the entity's fire time, in milliseconds
+   */
+  public void setFireTime(int i, long time) {
+    fireTime[i] = time;
+  }
+
+  /**
+   * Returns the time an entity waits between shots.
+   *
+   * @param i
+   *          - the index of the entity
+   * @return the cooldown, in milliseconds
+   */
+  public int getCooldown(int i) {
+    return cooldown[i];
+  }
+
+  /**
+   * Sets the time an entity waits between shots.
+   *
+   * @param i
+   *          - the index of the entity
+   * @param time
+   *          - the cooldown, in milliseconds
+   */
+  public void setCooldown(int i, int time) {
+    cooldown[i] = time;
+  }
+
+  /**
+   * Writes the state of an entity to a buffer.
+   *
+   * @param i
+   *          - the index of the entity
+   * @param out
+   *          - the buffer to write to
+   */
+  public void saveState(int i, ByteBuffer out) {
+    out.putInt(x[i]).putInt(y[i]).putInt(width[i]).putInt(height[i]);
+    out.putInt(previousX[i]).putInt(previousY[i]);
+    out.putInt(speed[i]).putInt(horizontalSpeed[i]).putInt(horizontalLocation[i]);
+    out.putInt(randomMultiplier[i]).putInt(flags[i]).putInt(cooldown[i]);
+    out.putLong(lastTime[i]).putLong(fireTime[i]);
+  }
+
+  /**
+   * Restores the state of an entity from a buffer written by saveState().
+   *
+   * @param i
+   *          - the index of the entity
+   * @param in
+   *          - the buffer to read from
+   */
+  public void restoreState(int i, ByteBuffer in) {
+    boolean wasRemoved = (flags[i] & FLAG_REMOVED) != 0;
+    x[i] = in.getInt();
+    y[i] = in.getInt();
+    width[i] = in.getInt();
+    height[i] = in.getInt();
+    previousX[i] = in.getInt();
+    previousY[i] = in.getInt();
+    speed[i] = in.getInt();
+    horizontalSpeed[i] = in.getInt();
+    horizontalLocation[i] = in.getInt();
+    randomMultiplier[i] = in.getInt();
+    flags[i] = in.getInt();
+    cooldown[i] = in.getInt();
+    lastTime[i] = in.getLong();
+    fireTime[i] = in.getLong();
+
+    boolean isRemoved = (flags[i] & FLAG_REMOVED) != 0;
+    if (isRemoved != wasRemoved) {
+      markedCount += isRemoved ? 1 : -1;
+    }
+  }
+}
@@ -0,0 +1,78 @@
+package rbadia.voidspace.model;
+
+/**
+ * The game's random number service. Every random decision in the game is
+ * taken from one of its streams, all derived from a single seed, so a game
+ * played with the same seed and input is reproduced bit for bit.
+ * 
+ * Each kind of decision has its own stream, so e.g. drawing more stars does
+ * not change where the next asteroid spawns.
+ */
+public class GameRandom {
+  private final long seed;
+
+  private final RandomStream spawn;
+  private final RandomStream movement;
+  private final RandomStream cooldown;
+  private final RandomStream starfield;
+
+  /**
+   * Creates the random streams for a seed.
+   * 
+   * @param seed
+   *          - the seed
+   */
+  public GameRandom(long seed) {
+    this.seed = seed;
+    this.spawn = new RandomStream(RandomStream.mix64(seed + 1));
+    this.movement = new RandomStream(RandomStream.mix64(seed + 2));
+    this.cooldown = new RandomStream(RandomStream.mix64(seed + 3));
+    this.starfield = new RandomStream(RandomStream.mix64(seed + 4));
+  }
+
+  /**
+   * Returns the seed the streams were created from.
+   * 
+   * @return the seed
+   */
+  public long getSeed() {
+    return seed;
+  }
+
+  /**
+   * Returns the stream for spawn locations.
+   * 
+   * @return the spawn stream
+   */
+  public RandomStream spawn() {
+    return spawn;
+  }
+
+  /**
+   * Returns the stream for movement speeds and patterns.
+   * 
+   * @return the movement stream
+   */
+  public RandomStream movement() {
+    return movement;
+  }
+
+  /**
+   * Returns the stream for enemy fire cooldowns.
+   * 
+   * @return the cooldown stream
+   */
+  public RandomStream cooldown() {
+    return cooldown;
+  }
+
+  /**
+   * Returns the stream for the background stars. Only used for drawing, by the
+   * render thread.
+   * 
+   * @return the starfield stream
+   */
+  public RandomStream starfield() {
+    return starfield;
+  }
+}
@@ -0,0 +1,97 @@
+package rbadia.voidspace.model;
+
+/**
+ * A fast, non-allocating pseudo random number generator (SplitMix64, the
+ * algorithm behind java.util.SplittableRandom). Not thread safe: each stream
+ * must only be used by one thread.
+ */
+public class RandomStream {
+  private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+  private long state;
+
+  /**
+   * Creates a new stream from a seed. Two streams created from the same seed
+   * produce the same numbers.
+   * 
+   * @param seed
+   *          - the seed
+   */
+  public RandomStream(long seed) {
+    this.state = seed;
+  }
+
+  /**
+   * Scrambles the bits of a 64 bit value.
+   * 
+   * @param z
+   *          - the value to scramble
+   * @return the scrambled value
+   */
+  static long mix64(long z) {
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+
+  /**
+   * Returns the next random long.
+   * 
+   * @return a random long
+   */
+  public long nextLong() {
+    state += GOLDEN_GAMMA;
+    return mix64(state);
+  }
+
+  /**
+   * Returns the next random int.
+   * 
+   * @return a random int
+   */
+  public int nextInt() {
+    return (int) (nextLong() >>> 32);
+  }
+
+  /**
+   * Returns a random int between 0 (inclusive) and bound (exclusive).
+   * 
+   * @param bound
+   *          - the upper bound, must be positive
+   * @return a random int in [0, bound)
+   */
+  public int nextInt(int bound) {
+    if (bound <= 0)
+      throw new IllegalArgumentException("bound must be positive");
+    return (int) (((nextLong() >>> 33) * bound) >>> 31);
+  }
+
+  /**
+   * Returns the stream's state, from which it can be restored.
+   * 
+   * @return the state
+   */
+  public long getState() {
+    return state;
+  }
+
+  /**
+   * Restores the stream to a state returned by getState(), so it produces the
+   * same numbers again.
+   * 
+   * @param state
+   *          - the state
+   */
+  public void setState(long state) {
+    this.state = state;
+  }
+
+  /**
+   * Returns a random double between 0 (inclusive) and 1 (exclusive).
+   * 
+   * @return a random double in [0, 1)
+   */
+  public double nextDouble() {
+    return (nextLong() >>> 11) * 0x1.0p-53;
+  }
+}
@@ -1,34 +1,31 @@
 package rbadia.voidspace.model;
 
-import java.awt.Rectangle;
-
-import rbadia.voidspace.main.GameScreen;
-
 /**
  * Represents a player's ship/space craft.
  *
  */
-public class Ship extends Rectangle {
-  private static final long serialVersionUID = 1L;
-
+public class Ship extends Entity {
   public static final int DEFAULT_SPEED = 5;
   private static final int Y_OFFSET = 5; // initial y distance of the ship from
                                          // the bottom of the screen
 
-  private int shipWidth = 25;
-  private int shipHeight = 25;
-  private int speed = DEFAULT_SPEED;
+  private static final int SHIP_WIDTH = 25;
+  private static final int SHIP_HEIGHT = 25;
 
   /**
    * Creates a new ship at the default initial location.
    * 
-   * @param screen
-   *          the game screen
+   * @param store
+   *          the store the ship is added to
+   * @param bounds
+   *          the bounds of the game world
    */
-  public Ship(GameScreen screen) {
-    this.setLocation((screen.getWidth() - shipWidth) / 2, screen.getHeight() - shipHeight
+  public Ship(EntityStore<Ship> store, WorldBounds bounds) {
+    super(store);
+    this.setLocation((bounds.getWidth() - SHIP_WIDTH) / 2, bounds.getHeight() - SHIP_HEIGHT
         - Y_OFFSET);
-    this.setSize(shipWidth, shipHeight);
+    this.setSize(SHIP_WIDTH, SHIP_HEIGHT);
+    this.setSpeed(DEFAULT_SPEED);
   }
 
   /**
@@ -37,7 +34,7 @@ public class Ship extends Rectangle {
    * @return the default ship width
    */
   public int getShipWidth() {
-    return shipWidth;
+    return SHIP_WIDTH;
   }
 
   /**
@@ -46,7 +43,7 @@ public class Ship extends Rectangle {
    * @return the default ship height
    */
   public int getShipHeight() {
-    return shipHeight;
+    return SHIP_HEIGHT;
   }
 
   /**
@@ -55,7 +52,7 @@ public class Ship extends Rectangle {
    * @return the current ship speed
    */
   public int getSpeed() {
-    return speed;
+    return store.getSpeed(index);
   }
 
   /**
@@ -65,7 +62,7 @@ public class Ship extends Rectangle {
    *          the speed to set
    */
   public void setSpeed(int speed) {
-    this.speed = speed;
+    store.setSpeed(index, speed);
   }
 
   /**
@@ -0,0 +1,22 @@
+package rbadia.voidspace.model;
+
+/**
+ * The size of the game world. Implemented by the game screen, or by a fixed
+ * size when the game runs without a display.
+ */
+public interface WorldBounds {
+
+  /**
+   * Returns the width of the game world.
+   * 
+   * @return the width of the game world
+   */
+  public int getWidth();
+
+  /**
+   * Returns the height of the game world.
+   * 
+   * @return the height of the game world
+   */
+  public int getHeight();
+}
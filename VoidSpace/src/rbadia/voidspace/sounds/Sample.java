@@ -0,0 +1,131 @@
+package rbadia.voidspace.sounds;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * A sound decoded into memory, as 16 bit stereo frames at the mixer's sample
+ * rate, so the mixer can add it to its output without converting anything.
+ */
+public class Sample {
+  private final short[] data;
+
+  /**
+   * Creates a new sample from decoded frames.
+   *
+   * @param data
+   *          - the frames, the left and right channel of each one after the
+   *          other
+   */
+  public Sample(short[] data) {
+    this.data = data;
+  }
+
+  /**
+   * Loads and decodes a sound file, converting it to the given sample rate.
+   *
+   * @param url
+   *          - the sound file
+   * @param sampleRate
+   *          - the sample rate of the mixer
+   * @return the decoded sample
+   * @throws IOException
+   *           if the file can not be read
+   * @throws UnsupportedAudioFileException
+   *           if the file is not a sound file Java can decode
+   */
+  public static Sample load(URL url, float sampleRate) throws IOException,
+      UnsupportedAudioFileException {
+    AudioInputStream in = AudioSystem.getAudioInputStream(url);
+    try {
+      // let Java decode to 16 bit signed samples at the file's own rate
+      AudioFormat source = in.getFormat();
+      int channels = source.getChannels();
+      AudioFormat pcm = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, source.getSampleRate(),
+          16, channels, 2 * channels, source.getSampleRate(), false);
+      AudioInputStream decoded = AudioSystem.getAudioInputStream(pcm, in);
+      try {
+        byte[] bytes = readAll(decoded);
+        return new Sample(resample(bytes, channels, source.getSampleRate(), sampleRate));
+      } finally {
+        decoded.close();
+      }
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * Reads a stream to its end.
+   */
+  private static byte[] readAll(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[4096];
+    int read;
+    while ((read = in.read(buffer)) > 0) {
+      out.write(buffer, 0, read);
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Converts little endian 16 bit frames of one or two channels to stereo
+   * frames at another sample rate, interpolating linearly between frames.
+   */
+  private static short[] resample(byte[] bytes, int channels, float fromRate, float toRate) {
+    int fromFrames = bytes.length / (2 * channels);
+    if (fromFrames == 0) {
+      return new short[0];
+    }
+    int toFrames = (int) ((long) fromFrames * toRate / fromRate);
+    short[] data = new short[2 * toFrames];
+    double step = fromRate / toRate;
+    for (int f = 0; f < toFrames; f++) {
+      double position = f * step;
+      int from = (int) position;
+      int next = Math.min(from + 1, fromFrames - 1);
+      double t = position - from;
+      for (int c = 0; c < 2; c++) {
+        // a mono sound plays the same on both channels
+        int channel = Math.min(c, channels - 1);
+        int a = sampleAt(bytes, (from * channels + channel) * 2);
+        int b = sampleAt(bytes, (next * channels + channel) * 2);
+        data[2 * f + c] = (short) Math.round(a + (b - a) * t);
+      }
+    }
+    return data;
+  }
+
+  /**
+   * Returns the little endian 16 bit sample at the given byte offset.
+   */
+  private static int sampleAt(byte[] bytes, int offset) {
+    return (bytes[offset] & 0xff) | (bytes[offset + 1] << 8);
+  }
+
+  /**
+   * Returns the number of frames in the sample.
+   *
+   * @return the sample's length, in frames
+   */
+  public int getFrameCount() {
+    return data.length / 2;
+  }
+
+  /**
+   * Returns the sample's frames, the left and right channel of each one after
+   * the other. The array is shared, not copied.
+   *
+   * @return the frames
+   */
+  short[] getData() {
+    return data;
+  }
+}
@@ -1,35 +1,73 @@
 package rbadia.voidspace.sounds;
 
-import java.applet.Applet;
-import java.applet.AudioClip;
-
-import rbadia.voidspace.main.GameScreen;
-
 /**
- * Manages and plays the game's sounds.
+ * Manages and plays the game's sounds, through a mixer running on its own
+ * audio thread.
  */
 public class SoundManager {
-  private static final boolean SOUND_ON = true;
+  // the sample ids
+  private static final int SHIP_EXPLOSION = 0;
+  private static final int BULLET = 1;
+  private static final int CHUCK_NORRIS = 2;
+  private static final int CHUCK_NORRIS_EXPLOSION = 3;
+  private static final String[] SAMPLE_FILES = { "shipExplosion.wav", "laser.wav",
+      "chuckNorris.wav", "chuckNorrisExplosion.wav" };
+
+  // most sounds played at once, and most sounds asked for between two chunks
+  private static final int VOICES = 16;
+  private static final int QUEUE_CAPACITY = 64;
 
-  private AudioClip shipExplosionSound = Applet.newAudioClip(GameScreen.class
-      .getResource("/rbadia/voidspace/sounds/shipExplosion.wav"));
-  private AudioClip bulletSound = Applet.newAudioClip(GameScreen.class
-      .getResource("/rbadia/voidspace/sounds/laser.wav"));
-  private AudioClip chuckNorrisSound = Applet.newAudioClip(GameScreen.class
-      .getResource("/rbadia/voidspace/sounds/chuckNorris.wav"));
-  private AudioClip chuckNorrisExplosionSound = Applet.newAudioClip(GameScreen.class
-      .getResource("/rbadia/voidspace/sounds/chuckNorrisExplosion.wav"));
+  private final boolean soundOn;
+  private SoundMixer mixer;
+
+  /**
+   * Creates a new sound manager and loads the game sounds.
+   */
+  public SoundManager() {
+    this(true);
+  }
+
+  /**
+   * Creates a new sound manager.
+   *
+   * @param soundOn
+   *          - false to never load nor play any sound, e.g. when running
+   *          without a display
+   */
+  public SoundManager(boolean soundOn) {
+    if (soundOn) {
+      try {
+        Sample[] samples = new Sample[SAMPLE_FILES.length];
+        for (int s = 0; s < samples.length; s++) {
+          samples[s] = Sample.load(SoundManager.class.getResource("/rbadia/voidspace/sounds/"
+              + SAMPLE_FILES[s]), SoundMixer.SAMPLE_RATE);
+        }
+        mixer = new SoundMixer(samples, VOICES, QUEUE_CAPACITY);
+        mixer.start();
+      } catch (Exception e) {
+        // play the game without sound
+        e.printStackTrace();
+        mixer = null;
+      }
+    }
+    this.soundOn = mixer != null;
+  }
+
+  /**
+   * Returns the mixer playing the sounds.
+   *
+   * @return the mixer, or null if sound is off
+   */
+  public SoundMixer getMixer() {
+    return mixer;
+  }
 
   /**
    * Plays sound for bullets fired by the ship.
    */
   public void playBulletSound() {
-    if (SOUND_ON) {
-      new Thread(new Runnable() {
-        public void run() {
-          bulletSound.play();
-        }
-      }).start();
+    if (soundOn) {
+      mixer.play(BULLET);
     }
   }
 
@@ -37,7 +75,7 @@ public class SoundManager {
    * Plays sound for bullets fired by the enemy ships.
    */
   public void playEnemyBulletSound() {
-    if (SOUND_ON) {
+    if (soundOn) {
 
     }
   }
@@ -46,12 +84,8 @@ public class SoundManager {
    * Plays sound for ship explosions.
    */
   public void playShipExplosionSound() {
-    if (SOUND_ON) {
-      new Thread(new Runnable() {
-        public void run() {
-          shipExplosionSound.play();
-        }
-      }).start();
+    if (soundOn) {
+      mixer.play(SHIP_EXPLOSION);
     }
   }
 
@@ -59,12 +93,8 @@ public class SoundManager {
    * Plays the chuck norris sound (when bullet fired to the master)
    */
   public void playChuckNorrisSound() {
-    if (SOUND_ON) {
-      new Thread(new Runnable() {
-        public void run() {
-          chuckNorrisSound.play();
-        }
-      }).start();
+    if (soundOn) {
+      mixer.play(CHUCK_NORRIS);
     }
   }
 
@@ -72,12 +102,8 @@ public class SoundManager {
    * Plays the chuck norris explosion (epic player's ship explosion)
    */
   public void playChuckNorrisExplosionSound() {
-    if (SOUND_ON) {
-      new Thread(new Runnable() {
-        public void run() {
-          chuckNorrisExplosionSound.play();
-        }
-      }).start();
+    if (soundOn) {
+      mixer.play(CHUCK_NORRIS_EXPLOSION);
     }
   }
 
@@ -86,7 +112,7 @@ public class SoundManager {
    */
   public void playAsteroidExplosionSound() {
     // play sound for asteroid explosions
-    if (SOUND_ON) {
+    if (soundOn) {
 
     }
   }
@@ -96,7 +122,7 @@ public class SoundManager {
    */
   public void playEnemyShipExplosionSound() {
     // play sound for asteroid explosions
-    if (SOUND_ON) {
+    if (soundOn) {
 
     }
   }
@@ -0,0 +1,261 @@
+package rbadia.voidspace.sounds;
+
+import java.util.Arrays;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+/**
+ * Mixes the game's sounds on a single audio thread. The samples are decoded
+ * into memory once; playing a sound only queues its id, and the audio thread
+ * starts it on one of a fixed number of voices. When every voice is busy, the
+ * sound that has been playing the longest is cut off for the new one.
+ *
+ * The audio thread mixes the voices in small chunks and writes each chunk to
+ * a short output line, whose write() paces the thread. The time from asking
+ * for a sound to its first frame reaching the speakers is measured for each
+ * sound played.
+ */
+public class SoundMixer implements Runnable {
+  // the output format: 16 bit signed stereo
+  public static final float SAMPLE_RATE = 44100;
+  private static final int CHANNELS = 2;
+  private static final int FRAME_BYTES = 2 * CHANNELS;
+
+  // frames mixed at a time, and how many chunks the output line holds; these
+  // set the latency, about 23 ms with these values
+  private static final int CHUNK_FRAMES = 256;
+  private static final int LINE_CHUNKS = 4;
+
+  private static final double NANOS_PER_MILLI = 1000000.0;
+
+  private final Sample[] samples;
+  private final SoundQueue queue;
+  private SourceDataLine line;
+  private volatile boolean running;
+
+  // the voices; a free voice plays sample -1
+  private final int[] voiceSamples;
+  private final int[] voicePositions;
+
+  // the chunk being mixed, and the same chunk as bytes for the line
+  private final int[] mixed = new int[CHANNELS * CHUNK_FRAMES];
+  private final byte[] output = new byte[FRAME_BYTES * CHUNK_FRAMES];
+  private long framesWritten;
+
+  // sounds dropped because the queue was full; only written by the producer
+  private volatile int droppedSounds;
+
+  // measured latencies; only written by the audio thread
+  private long soundsStarted;
+  private long totalLatency;
+  private volatile double averageLatencyMillis;
+  private volatile double maxLatencyMillis;
+
+  /**
+   * Creates a new mixer, not connected to any output yet.
+   *
+   * @param samples
+   *          - the samples the mixer plays, by id
+   * @param voiceCount
+   *          - the most sounds played at the same time
+   * @param queueCapacity
+   *          - the most sounds waiting to start, a power of two
+   */
+  public SoundMixer(Sample[] samples, int voiceCount, int queueCapacity) {
+    this.samples = samples;
+    this.queue = new SoundQueue(queueCapacity);
+    this.voiceSamples = new int[voiceCount];
+    this.voicePositions = new int[voiceCount];
+    for (int v = 0; v < voiceCount; v++) {
+      voiceSamples[v] = -1;
+    }
+  }
+
+  /**
+   * Returns the format the mixer outputs.
+   *
+   * @return the output format
+   */
+  public static AudioFormat getFormat() {
+    return new AudioFormat(SAMPLE_RATE, 16, CHANNELS, true, false);
+  }
+
+  /**
+   * Opens the output line and starts the audio thread.
+   *
+   * @throws LineUnavailableException
+   *           if there is no line to play sounds on
+   */
+  public void start() throws LineUnavailableException {
+    AudioFormat format = getFormat();
+    line = AudioSystem.getSourceDataLine(format);
+    line.open(format, LINE_CHUNKS * output.length);
+    line.start();
+
+    running = true;
+    Thread thread = new Thread(this, "Audio");
+    thread.setDaemon(true);
+    thread.setPriority(Thread.MAX_PRIORITY);
+    thread.start();
+  }
+
+  /**
+   * Stops the audio thread, which closes the output line.
+   */
+  public void stop() {
+    running = false;
+  }
+
+  /**
+   * Asks for a sound to be played. Never blocks; only one thread, the game
+   * thread, may call it.
+   *
+   * @param sample
+   *          - the id of the sample to play
+   */
+  public void play(int sample) {
+    if (!queue.offer(sample, System.nanoTime())) {
+      droppedSounds++;
+    }
+  }
+
+  /**
+   * Implements the run interface method. Should be called by the audio
+   * thread.
+   */
+  public void run() {
+    try {
+      while (running) {
+        mixChunk();
+        line.write(output, 0, output.length);
+        framesWritten += CHUNK_FRAMES;
+      }
+    } finally {
+      line.close();
+    }
+  }
+
+  /**
+   * Starts the queued sounds and mixes the next chunk of output.
+   */
+  void mixChunk() {
+    startQueuedSounds();
+
+    Arrays.fill(mixed, 0);
+    for (int v = 0; v < voiceSamples.length; v++) {
+      if (voiceSamples[v] >= 0) {
+        mixVoice(v);
+      }
+    }
+
+    // clip the sum of the voices to 16 bits
+    for (int s = 0; s < mixed.length; s++) {
+      int value = mixed[s];
+      if (value > Short.MAX_VALUE) {
+        value = Short.MAX_VALUE;
+      } else if (value < Short.MIN_VALUE) {
+        value = Short.MIN_VALUE;
+      }
+      output[2 * s] = (byte) value;
+      output[2 * s + 1] = (byte) (value >> 8);
+    }
+  }
+
+  /**
+   * Adds the next chunk of a voice to the mix, freeing the voice when its
+   * sample ends.
+   */
+  private void mixVoice(int v) {
+    short[] data = samples[voiceSamples[v]].getData();
+    int position = voicePositions[v];
+    int count = Math.min(mixed.length, data.length - position);
+    for (int s = 0; s < count; s++) {
+      mixed[s] += data[position + s];
+    }
+    position += count;
+    if (position >= data.length) {
+      voiceSamples[v] = -1;
+    } else {
+      voicePositions[v] = position;
+    }
+  }
+
+  /**
+   * Starts every queued sound on a voice, measuring when its first frame will
+   * be heard.
+   */
+  private void startQueuedSounds() {
+    if (queue.isEmpty()) {
+      return;
+    }
+    // this chunk plays after everything still waiting in the line
+    long now = System.nanoTime();
+    long buffered = line == null ? 0 : framesWritten - line.getLongFramePosition();
+    long outputTime = now + (long) (buffered * 1000000000L / SAMPLE_RATE);
+
+    while (!queue.isEmpty()) {
+      int sample = queue.peekSample();
+      long triggerTime = queue.peekTriggerTime();
+      queue.remove();
+
+      int v = findVoice();
+      voiceSamples[v] = sample;
+      voicePositions[v] = 0;
+
+      double latency = (outputTime - triggerTime) / NANOS_PER_MILLI;
+      soundsStarted++;
+      totalLatency += outputTime - triggerTime;
+      averageLatencyMillis = totalLatency / NANOS_PER_MILLI / soundsStarted;
+      if (latency > maxLatencyMillis) {
+        maxLatencyMillis = latency;
+      }
+    }
+  }
+
+  /**
+   * Returns a free voice, or else the voice that has played the longest.
+   */
+  private int findVoice() {
+    int oldest = 0;
+    for (int v = 0; v < voiceSamples.length; v++) {
+      if (voiceSamples[v] < 0) {
+        return v;
+      }
+      if (voicePositions[v] > voicePositions[oldest]) {
+        oldest = v;
+      }
+    }
+    return oldest;
+  }
+
+  /**
+   * Returns the average time from asking for a sound to hearing it.
+   *
+   * @return the average latency, in milliseconds
+   */
+  public double getAverageLatencyMillis() {
+    return averageLatencyMillis;
+  }
+
+  /**
+   * Returns the longest time from asking for a sound to hearing it.
+   *
+   * @return the longest latency, in milliseconds
+   */
+  public double getMaxLatencyMillis() {
+    return maxLatencyMillis;
+  }
+
+  /**
+   * Returns the number of sounds dropped because too many were asked for
+   * between two chunks.
+   *
+   * @return the number of dropped sounds
+   */
+  public int getDroppedSounds() {
+    return droppedSounds;
+  }
+}
@@ -0,0 +1,94 @@
+package rbadia.voidspace.sounds;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded queue of sounds to play, from the game thread to the mixer's
+ * audio thread. It is a ring buffer with a single producer and a single
+ * consumer, so neither side ever takes a lock or waits for the other: a full
+ * queue drops the sound instead.
+ */
+public class SoundQueue {
+  private final int mask;
+  private final int[] samples;
+  private final long[] triggerTimes;
+
+  // the next slot to write and the next slot to read; each is only advanced
+  // by one side, and published to the other with an ordered write
+  private final AtomicLong tail = new AtomicLong();
+  private final AtomicLong head = new AtomicLong();
+
+  /**
+   * Creates a new, empty queue.
+   *
+   * @param capacity
+   *          - the most sounds the queue holds, a power of two
+   */
+  public SoundQueue(int capacity) {
+    if (Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+    }
+    this.mask = capacity - 1;
+    this.samples = new int[capacity];
+    this.triggerTimes = new long[capacity];
+  }
+
+  /**
+   * Adds a sound to the queue. Only called by the producer thread.
+   *
+   * @param sample
+   *          - the id of the sample to play
+   * @param triggerTime
+   *          - when the sound was asked for, from System.nanoTime()
+   * @return false if the queue was full and the sound was dropped
+   */
+  public boolean offer(int sample, long triggerTime) {
+    long t = tail.get();
+    if (t - head.get() > mask) {
+      return false;
+    }
+    int slot = (int) t & mask;
+    samples[slot] = sample;
+    triggerTimes[slot] = triggerTime;
+    tail.lazySet(t + 1);
+    return true;
+  }
+
+  /**
+   * Returns whether the queue has a sound to take. Only called by the
+   * consumer thread.
+   *
+   * @return true if the queue is empty
+   */
+  public boolean isEmpty() {
+    return head.get() == tail.get();
+  }
+
+  /**
+   * Returns the sample id of the next sound. Only called by the consumer
+   * thread, when the queue is not empty.
+   *
+   * @return the sample id
+   */
+  public int peekSample() {
+    return samples[(int) head.get() & mask];
+  }
+
+  /**
+   * Returns the trigger time of the next sound. Only called by the consumer
+   * thread, when the queue is not empty.
+   *
+   * @return the trigger time, from System.nanoTime()
+   */
+  public long peekTriggerTime() {
+    return triggerTimes[(int) head.get() & mask];
+  }
+
+  /**
+   * Removes the next sound, freeing its slot for the producer. Only called by
+   * the consumer thread, when the queue is not empty.
+   */
+  public void remove() {
+    head.lazySet(head.get() + 1);
+  }
+}